@@ -0,0 +1,119 @@
+package org.deblock.exercise.adapter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-supplier call timeout derived from recent latency. Latencies go into a histogram with log-spaced
+ * buckets (about 12% apart) over a sliding window made of rotating slots, and the timeout is the chosen
+ * percentile times {@code factor}, clamped to {@code [floor, ceiling]}. Until the window holds
+ * {@code minSamples} calls the ceiling is used.
+ */
+class AdaptiveTimeout {
+
+    private static final int SLOTS = 6;
+    private static final double BUCKET_GROWTH = 1.125;
+    // Upper bounds in microseconds, from 1ms to a bit over two minutes
+    private static final long[] BOUNDS = bounds(1_000, 130_000_000);
+
+    private final double percentile;
+    private final double factor;
+    private final Duration floor;
+    private final Duration ceiling;
+    private final int minSamples;
+    private final long slotNanos;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private final long[][] counts = new long[SLOTS][BOUNDS.length + 1];
+    private final long[] slotEpoch = new long[SLOTS];
+    private long samples;
+
+    AdaptiveTimeout(double percentile, double factor, Duration floor, Duration ceiling, int minSamples,
+                    Duration window, LongSupplier nanoClock) {
+        this.percentile = percentile;
+        this.factor = factor;
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.minSamples = minSamples;
+        this.slotNanos = Math.max(1, window.toNanos() / SLOTS);
+        this.nanoClock = nanoClock;
+        Arrays.fill(slotEpoch, Long.MIN_VALUE / 2);
+    }
+
+    synchronized Duration current() {
+        expireSlots(nanoClock.getAsLong());
+        if (samples < minSamples) {
+            return ceiling;
+        }
+        long rank = (long) Math.ceil(samples * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket <= BOUNDS.length; bucket++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                seen += counts[slot][bucket];
+            }
+            if (seen >= rank) {
+                long micros = BOUNDS[Math.min(bucket, BOUNDS.length - 1)];
+                Duration timeout = Duration.ofNanos((long) (micros * 1_000 * factor));
+                return timeout.compareTo(floor) < 0 ? floor : timeout.compareTo(ceiling) > 0 ? ceiling : timeout;
+            }
+        }
+        return ceiling;
+    }
+
+    synchronized void record(long latencyNanos) {
+        long now = nanoClock.getAsLong();
+        int slot = expireSlots(now);
+        counts[slot][bucket(latencyNanos / 1_000)]++;
+        samples++;
+    }
+
+    // Clears slots that fell out of the window and returns the slot for now
+    private int expireSlots(long now) {
+        long epoch = Math.floorDiv(now, slotNanos);
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotEpoch[i] <= epoch - SLOTS) {
+                clear(i);
+            }
+        }
+        int slot = (int) Math.floorMod(epoch, SLOTS);
+        if (slotEpoch[slot] != epoch) {
+            clear(slot);
+            slotEpoch[slot] = epoch;
+        }
+        return slot;
+    }
+
+    private void clear(int slot) {
+        for (long count : counts[slot]) {
+            samples -= count;
+        }
+        Arrays.fill(counts[slot], 0);
+    }
+
+    private static int bucket(long micros) {
+        int low = 0;
+        int high = BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS[mid] < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] bounds(long fromMicros, long toMicros) {
+        int n = (int) Math.ceil(Math.log((double) toMicros / fromMicros) / Math.log(BUCKET_GROWTH)) + 1;
+        long[] bounds = new long[n];
+        double bound = fromMicros;
+        for (int i = 0; i < n; i++) {
+            bounds[i] = (long) bound;
+            bound *= BUCKET_GROWTH;
+        }
+        return bounds;
+    }
+}
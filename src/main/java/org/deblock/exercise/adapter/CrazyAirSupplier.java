@@ -9,74 +9,83 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Component
 public class CrazyAirSupplier implements FlightSupplierClient {
 
     @Autowired
-    private RestTemplate restTemplate;
+    private SupplierHttpClient supplierHttpClient;
 
     private final String supplierName = "CrazyAir";
 
     @Value("${crazyair.api.url}")
     String apiUrl;
 
+    private SupplierQueryTemplate query;
+
     private static final Logger logger = LoggerFactory.getLogger(CrazyAirSupplier.class);
 
 
+    // Runs once apiUrl has been injected
+    @PostConstruct
+    void buildQuery() {
+        query = new SupplierQueryTemplate(apiUrl, "origin", "destination", "departureDate", "returnDate", "passengerCount");
+    }
+
+    @Override
+    public String name() {
+        return supplierName;
+    }
+
+    @Override
+    public void warmUp() {
+        supplierHttpClient.preconnect(supplierName, apiUrl);
+    }
+
     @Override
     @Async
     public CompletableFuture<List<FlightResponse>> search(SearchRequest request) {
-        String url = UriComponentsBuilder
-                .fromHttpUrl(apiUrl)
-                .queryParam("origin", request.origin())
-                .queryParam("destination", request.destination())
-                .queryParam("departureDate", request.departureDate())
-                .queryParam("returnDate", request.returnDate())
-                .queryParam("passengerCount", request.numberOfPassengers())
-                .toUriString();
-
-        logger.info("Calling {} API with URL: {}", supplierName, url);
+        String url = query.expand(request);
+
+        logger.debug("Calling {} API with URL: {}", supplierName, url);
         try {
-            ResponseEntity<List<CrazyAirResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<CrazyAirResponse>>() {}
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                List<FlightResponse> result =  response.getBody().stream()
-                        .map(res -> new FlightResponse(
-                                res.airline(),
-                                supplierName,
-                                res.price(),
-                                res.departureAirportCode(),
-                                res.destinationAirportCode(),
-                                res.departureDate(),
-                                res.arrivalDate()
-                        ))
-                        .collect(Collectors.toList());
-                return CompletableFuture.completedFuture(result);
-            } else {
-                logger.error("Failed response from {} API: HTTP {}", supplierName, response.getStatusCode());
-                throw new FlightSupplierException(String.format("Failed to fetch flights from supplier %s: HTTP %s", supplierName, response.getStatusCode()));
-            }
-        } catch (RestClientException e) {
+            List<FlightResponse> result = supplierHttpClient.get(supplierName, url, request.filters(), CrazyAirResponse.class,
+                    this::map);
+            return CompletableFuture.completedFuture(result);
+        } catch (IOException e) {
             logger.error("Exception when calling {} API", supplierName, e);
-            throw new FlightSupplierException(String.format("Error calling supplier %s API", supplierName), e);
+            throw new FlightSupplierException("Error calling supplier " + supplierName + " API", e);
         }
     }
+
+    @Override
+    public List<FlightResponse> readSample(int flights) throws IOException {
+        LocalDateTime departure = LocalDateTime.now().plusDays(30).withNano(0);
+        List<CrazyAirResponse> sample = IntStream.range(0, flights)
+                .mapToObj(i -> new CrazyAirResponse("CrazyAir" + i % 5, 50.0 + (i * 37) % 400, i % 2 == 0 ? "E" : "B",
+                        "LHR", "AMS", departure.plusMinutes(i * 10L), departure.plusMinutes(i * 10L + 75)))
+                .toList();
+        return supplierHttpClient.readSample(supplierName, sample, CrazyAirResponse.class, this::map);
+    }
+
+    private FlightResponse map(CrazyAirResponse res) {
+        return new FlightResponse(
+                res.airline(),
+                supplierName,
+                res.price(),
+                res.departureAirportCode(),
+                res.destinationAirportCode(),
+                res.departureDate(),
+                res.arrivalDate()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package org.deblock.exercise.adapter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.ToIntFunction;
+
+/**
+ * Arithmetic fare expression such as {@code (pricing.base + pricing.tax) * (1 - discount / 100)}, compiled once
+ * into a tree of {@link MethodHandle}s over a {@code double[]} of field values. Identifiers are JSON field paths;
+ * {@code slotFor} assigns each one its index in that array. Supports {@code + - * /}, unary minus, parentheses
+ * and numeric literals.
+ */
+final class FareFormula {
+
+    private static final MethodType FORMULA_TYPE = MethodType.methodType(double.class, double[].class);
+    private static final MethodType BINARY_TYPE = MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodHandle SLOT_GETTER = MethodHandles.arrayElementGetter(double[].class);
+    private static final MethodHandle ADD = operator("add", BINARY_TYPE);
+    private static final MethodHandle SUBTRACT = operator("subtract", BINARY_TYPE);
+    private static final MethodHandle MULTIPLY = operator("multiply", BINARY_TYPE);
+    private static final MethodHandle DIVIDE = operator("divide", BINARY_TYPE);
+    private static final MethodHandle NEGATE = operator("negate", MethodType.methodType(double.class, double.class));
+
+    private final String expression;
+    private final MethodHandle handle;
+
+    private FareFormula(String expression, MethodHandle handle) {
+        this.expression = expression;
+        this.handle = handle;
+    }
+
+    static FareFormula compile(String expression, ToIntFunction<String> slotFor) {
+        Parser parser = new Parser(expression, slotFor);
+        MethodHandle handle = parser.expression();
+        parser.skipWhitespace();
+        if (parser.position < expression.length()) {
+            throw parser.error("unexpected '" + expression.charAt(parser.position) + "'");
+        }
+        return new FareFormula(expression, handle);
+    }
+
+    double evaluate(double[] slots) {
+        try {
+            return (double) handle.invokeExact(slots);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to evaluate fare formula " + expression, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static double add(double left, double right) {
+        return left + right;
+    }
+
+    private static double subtract(double left, double right) {
+        return left - right;
+    }
+
+    private static double multiply(double left, double right) {
+        return left * right;
+    }
+
+    private static double divide(double left, double right) {
+        return left / right;
+    }
+
+    private static double negate(double value) {
+        return -value;
+    }
+
+    private static MethodHandle operator(String name, MethodType type) {
+        try {
+            return MethodHandles.lookup().findStatic(FareFormula.class, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Recursive descent: expression = term (('+' | '-') term)*, term = factor (('*' | '/') factor)*
+    private static final class Parser {
+        private final String source;
+        private final ToIntFunction<String> slotFor;
+        private int position;
+
+        Parser(String source, ToIntFunction<String> slotFor) {
+            this.source = source;
+            this.slotFor = slotFor;
+        }
+
+        MethodHandle expression() {
+            MethodHandle left = term();
+            while (true) {
+                if (consume('+')) {
+                    left = binary(ADD, left, term());
+                } else if (consume('-')) {
+                    left = binary(SUBTRACT, left, term());
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private MethodHandle term() {
+            MethodHandle left = factor();
+            while (true) {
+                if (consume('*')) {
+                    left = binary(MULTIPLY, left, factor());
+                } else if (consume('/')) {
+                    left = binary(DIVIDE, left, factor());
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private MethodHandle factor() {
+            if (consume('-')) {
+                return MethodHandles.filterReturnValue(factor(), NEGATE);
+            }
+            if (consume('(')) {
+                MethodHandle inner = expression();
+                if (!consume(')')) {
+                    throw error("missing ')'");
+                }
+                return inner;
+            }
+            skipWhitespace();
+            int start = position;
+            if (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                while (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                double value = Double.parseDouble(source.substring(start, position));
+                return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, double[].class);
+            }
+            while (position < source.length() && isPathChar(source.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error(position < source.length() ? "unexpected '" + source.charAt(position) + "'" : "unexpected end");
+            }
+            int slot = slotFor.applyAsInt(source.substring(start, position));
+            return MethodHandles.insertArguments(SLOT_GETTER, 1, slot);
+        }
+
+        // (double[])double handles combined into one that reads the same array twice
+        private static MethodHandle binary(MethodHandle operator, MethodHandle left, MethodHandle right) {
+            return MethodHandles.permuteArguments(MethodHandles.filterArguments(operator, 0, left, right),
+                    FORMULA_TYPE, 0, 0);
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (position < source.length() && source.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void skipWhitespace() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid fare formula '" + source + "' at " + position + ": " + message);
+        }
+
+        private static boolean isPathChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+        }
+    }
+}
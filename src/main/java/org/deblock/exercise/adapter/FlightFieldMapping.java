@@ -0,0 +1,190 @@
+package org.deblock.exercise.adapter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.deblock.exercise.domain.FlightResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps one supplier flight object to a {@link FlightResponse} straight from the token stream. The configured
+ * field paths are compiled into a trie, so reading an element is one pass that fills a slot array per field
+ * and skips every subtree no path goes through; the fare is then evaluated by a compiled {@link FareFormula}.
+ * <p>
+ * Configured under {@code <supplier>.mapping.}: {@code airline}, {@code departure-airport},
+ * {@code arrival-airport}, {@code departure-date} and {@code arrival-date} paths, the {@code fare} formula,
+ * an optional {@code fare-scale} (decimal places to round to) and an optional {@code date-format} pattern.
+ * Without a pattern, ISO date-times are accepted, with offsets converted to UTC.
+ */
+final class FlightFieldMapping {
+
+    private static final String[] TEXT_FIELDS =
+            {"airline", "departure-airport", "arrival-airport", "departure-date", "arrival-date"};
+    private static final int AIRLINE = 0;
+    private static final int DEPARTURE_AIRPORT = 1;
+    private static final int ARRIVAL_AIRPORT = 2;
+    private static final int DEPARTURE_DATE = 3;
+    private static final int ARRIVAL_DATE = 4;
+
+    private final String supplierName;
+    private final Node root = new Node();
+    private final FareFormula fare;
+    private final double fareScale;
+    private final DateTimeFormatter dateFormat;
+    private int numberSlots;
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightFieldMapping.class);
+
+    private FlightFieldMapping(String supplierName, Environment environment, String prefix) {
+        this.supplierName = supplierName;
+        for (int i = 0; i < TEXT_FIELDS.length; i++) {
+            node(environment.getRequiredProperty(prefix + TEXT_FIELDS[i])).textSlot = i;
+        }
+        this.fare = FareFormula.compile(environment.getRequiredProperty(prefix + "fare"), path -> {
+            Node node = node(path);
+            if (node.numberSlot < 0) {
+                node.numberSlot = numberSlots++;
+            }
+            return node.numberSlot;
+        });
+        Integer scale = environment.getProperty(prefix + "fare-scale", Integer.class);
+        this.fareScale = scale == null ? 0 : Math.pow(10, scale);
+        String pattern = environment.getProperty(prefix + "date-format");
+        this.dateFormat = pattern == null ? DateTimeFormatter.ISO_DATE_TIME : DateTimeFormatter.ofPattern(pattern);
+    }
+
+    static FlightFieldMapping compile(String supplierName, Environment environment) {
+        return new FlightFieldMapping(supplierName, environment, supplierName.toLowerCase(Locale.ROOT) + ".mapping.");
+    }
+
+    /**
+     * Reads the object the parser is positioned on. Returns null, dropping the flight, when a mapped field is
+     * missing, the fare isn't a finite number, or a date doesn't match the configured format.
+     */
+    FlightResponse read(JsonParser parser) throws IOException {
+        String[] text = new String[TEXT_FIELDS.length];
+        double[] numbers = new double[numberSlots];
+        Arrays.fill(numbers, Double.NaN);
+        readObject(parser, root, text, numbers);
+
+        double fare = this.fare.evaluate(numbers);
+        for (String value : text) {
+            if (value == null) {
+                return null;
+            }
+        }
+        // A formula can also come out infinite, e.g. when dividing by a zero field
+        if (!Double.isFinite(fare)) {
+            return null;
+        }
+        if (fareScale > 0) {
+            fare = Math.round(fare * fareScale) / fareScale;
+        }
+        LocalDateTime departure = dateTime(text[DEPARTURE_DATE]);
+        LocalDateTime arrival = dateTime(text[ARRIVAL_DATE]);
+        if (departure == null || arrival == null) {
+            return null;
+        }
+        return new FlightResponse(text[AIRLINE], supplierName, fare, text[DEPARTURE_AIRPORT], text[ARRIVAL_AIRPORT],
+                departure, arrival);
+    }
+
+    /**
+     * Writes a JSON array of {@code flights} synthetic elements shaped by the configured paths, for the
+     * startup warm-up to read back through {@link #read}.
+     */
+    void writeSample(JsonGenerator generator, int flights) throws IOException {
+        LocalDateTime departure = LocalDateTime.now().plusDays(30).withNano(0);
+        generator.writeStartArray();
+        for (int i = 0; i < flights; i++) {
+            String[] text = {"Sample" + i % 5, "LHR", "AMS",
+                    dateFormat.format(departure.plusMinutes(i * 10L).atZone(ZoneOffset.UTC)),
+                    dateFormat.format(departure.plusMinutes(i * 10L + 75).atZone(ZoneOffset.UTC))};
+            writeObject(generator, root, text, 10.0 + (i * 37) % 400);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeObject(JsonGenerator generator, Node node, String[] text, double number)
+            throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Node> field : node.children.entrySet()) {
+            Node child = field.getValue();
+            generator.writeFieldName(field.getKey());
+            if (!child.children.isEmpty()) {
+                writeObject(generator, child, text, number);
+            } else if (child.textSlot >= 0) {
+                generator.writeString(text[child.textSlot]);
+            } else {
+                // Distinct per slot, so no formula divides by a zero difference
+                generator.writeNumber(number + child.numberSlot);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void readObject(JsonParser parser, Node node, String[] text, double[] numbers) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Node child = node.children.get(parser.getCurrentName());
+            JsonToken value = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (value == JsonToken.VALUE_NULL) {
+                // Left unset, so the flight is dropped rather than priced as zero
+            } else if (value == JsonToken.START_OBJECT) {
+                readObject(parser, child, text, numbers);
+            } else if (value.isScalarValue()) {
+                if (child.textSlot >= 0) {
+                    text[child.textSlot] = parser.getValueAsString();
+                }
+                if (child.numberSlot >= 0) {
+                    numbers[child.numberSlot] = parser.getValueAsDouble(Double.NaN);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // Null for a date that doesn't match the format, so one bad element doesn't fail the whole response
+    private LocalDateTime dateTime(String value) {
+        TemporalAccessor parsed;
+        try {
+            parsed = dateFormat.parseBest(value, OffsetDateTime::from, LocalDateTime::from);
+        } catch (DateTimeParseException e) {
+            logger.warn("Dropped flight from {} API with unparseable date: {}", supplierName, value);
+            return null;
+        }
+        return parsed instanceof OffsetDateTime offset
+                ? offset.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                : (LocalDateTime) parsed;
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        for (String name : path.split("\\.")) {
+            node = node.children.computeIfAbsent(name, ignored -> new Node());
+        }
+        return node;
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        int textSlot = -1;
+        int numberSlot = -1;
+    }
+}
@@ -0,0 +1,70 @@
+package org.deblock.exercise.adapter;
+
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSupplierClient;
+import org.deblock.exercise.exception.FlightSupplierException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Async;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Supplier adapter driven entirely by configuration under the supplier's property prefix: the URL
+ * ({@code <supplier>.api.url}), query parameter names ({@link SupplierQueryTemplate}) and the response
+ * mapping ({@link FlightFieldMapping}). Everything is compiled when the bean is created, so a bad mapping
+ * fails startup and searches do no per-call interpretation. Registered by {@link GenericSupplierRegistrar}.
+ */
+public class GenericSupplier implements FlightSupplierClient {
+
+    private final String supplierName;
+    private final String apiUrl;
+    private final SupplierQueryTemplate query;
+    private final FlightFieldMapping mapping;
+    private final SupplierHttpClient supplierHttpClient;
+
+    private static final Logger logger = LoggerFactory.getLogger(GenericSupplier.class);
+
+    public GenericSupplier(String supplierName, Environment environment, SupplierHttpClient supplierHttpClient) {
+        this.supplierName = supplierName;
+        this.apiUrl = environment.getRequiredProperty(supplierName.toLowerCase(Locale.ROOT) + ".api.url");
+        this.query = SupplierQueryTemplate.fromEnvironment(supplierName, apiUrl, environment);
+        this.mapping = FlightFieldMapping.compile(supplierName, environment);
+        this.supplierHttpClient = supplierHttpClient;
+    }
+
+    @Override
+    public String name() {
+        return supplierName;
+    }
+
+    @Override
+    public void warmUp() {
+        supplierHttpClient.preconnect(supplierName, apiUrl);
+    }
+
+    @Override
+    @Async
+    public CompletableFuture<List<FlightResponse>> search(SearchRequest request) {
+        String url = query.expand(request);
+        logger.debug("Calling {} API with URL: {}", supplierName, url);
+        try {
+            return CompletableFuture.completedFuture(
+                    supplierHttpClient.get(supplierName, url, request.filters(), mapping::read));
+        } catch (IOException e) {
+            logger.error("Exception when calling {} API", supplierName, e);
+            throw new FlightSupplierException("Error calling supplier " + supplierName + " API", e);
+        }
+    }
+
+    @Override
+    public List<FlightResponse> readSample(int flights) throws IOException {
+        return supplierHttpClient.readSample(supplierName, generator -> mapping.writeSample(generator, flights),
+                mapping::read);
+    }
+}
@@ -0,0 +1,45 @@
+package org.deblock.exercise.adapter;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers a {@link GenericSupplier} bean for each name in {@code flights.generic-suppliers}, so onboarding
+ * a supplier with a conventional JSON API is a configuration change. The beans join the hand-written
+ * adapters in the {@code FlightSupplierClient} list.
+ */
+@Component
+public class GenericSupplierRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        String[] names = environment.getProperty("flights.generic-suppliers", String[].class, new String[0]);
+        for (String name : names) {
+            if (name.isBlank()) {
+                continue;
+            }
+            registry.registerBeanDefinition("genericSupplier" + name.trim(), BeanDefinitionBuilder
+                    .genericBeanDefinition(GenericSupplier.class)
+                    .addConstructorArgValue(name.trim())
+                    .addConstructorArgValue(environment)
+                    .addConstructorArgReference("supplierHttpClient")
+                    .getBeanDefinition());
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    }
+}
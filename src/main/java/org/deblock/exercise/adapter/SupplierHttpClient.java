@@ -0,0 +1,426 @@
+package org.deblock.exercise.adapter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.diagnostics.SupplierCallEvent;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.exception.FlightSupplierException;
+import org.deblock.exercise.exception.SupplierClientErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Shared HTTP read path for the supplier adapters. Each supplier gets its own {@link HttpClient} that prefers
+ * HTTP/2, so concurrent searches are multiplexed over a few connections per supplier; suppliers without HTTP/2
+ * support are served over HTTP/1.1 by the same client.
+ * <p>
+ * The response body is streamed element by element and mapped as it is read, under per-supplier caps
+ * ({@code <supplier>.payload.max-bytes} and {@code <supplier>.payload.max-items}). Reading stops at the byte
+ * cap, and only the cheapest {@code max-items} flights are retained.
+ * <p>
+ * Calls time out after an {@link AdaptiveTimeout} derived from the supplier's recent latency
+ * ({@code flights.supplier-timeout.*}), published as the {@code flights.supplier.timeout} gauge. The timeout
+ * covers the whole call, body included, and latency is sampled once the body has been read. Timed-out calls
+ * are sampled at the timeout they hit.
+ */
+@Component
+public class SupplierHttpClient {
+
+    private static final Comparator<FlightResponse> BY_FARE_DESC =
+            Comparator.comparingDouble(FlightResponse::fare).reversed();
+
+    // Keeps every flight, but takes each branch of SearchFilters.matches
+    private static final SearchFilters SAMPLE_FILTERS = new SearchFilters(Double.MAX_VALUE, List.of(), List.of("-"),
+            LocalTime.MIN, LocalTime.MAX, LocalTime.MIN, LocalTime.MAX);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, PayloadLimits> limits = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveTimeout> timeouts = new ConcurrentHashMap<>();
+    private final SupplierValidators validators;
+
+    private static final Logger logger = LoggerFactory.getLogger(SupplierHttpClient.class);
+
+    public SupplierHttpClient(ObjectMapper objectMapper, MeterRegistry meterRegistry, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.validators = new SupplierValidators(
+                environment.getProperty("flights.supplier-revalidation.max-entries", Integer.class, 10_000));
+    }
+
+    /**
+     * Fetches a JSON array of {@code type} and maps each element with {@code mapper}. Elements the
+     * mapper returns null for, or that don't match {@code filters}, are dropped.
+     */
+    public <T> List<FlightResponse> get(String supplierName, String url, SearchFilters filters, Class<T> type,
+                                        Function<T, FlightResponse> mapper) throws IOException {
+        return get(supplierName, url, filters, reader(type, mapper));
+    }
+
+    /**
+     * Fetches a JSON array and maps each element with {@code reader}, which is called with the parser on the
+     * element's {@code START_OBJECT} and must consume it up to the matching {@code END_OBJECT}.
+     * <p>
+     * When an earlier call for the same URL and filters returned an ETag or Last-Modified, the request is
+     * conditional, and a {@code 304} returns the earlier flights without reading or mapping a body.
+     */
+    public List<FlightResponse> get(String supplierName, String url, SearchFilters filters, ElementReader reader)
+            throws IOException {
+        PayloadLimits payloadLimits = limits(supplierName);
+        AdaptiveTimeout timeout = timeout(supplierName);
+        Duration budget = timeout.current();
+        SupplierValidators.Validated previous = validators.get(supplierName, url, filters);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .timeout(budget)
+                .GET();
+        if (previous != null && previous.etag() != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, previous.etag());
+        }
+        if (previous != null && previous.lastModified() != null) {
+            builder.header(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+        }
+        HttpRequest request = builder.build();
+
+        SupplierCallEvent event = new SupplierCallEvent();
+        event.supplier = supplierName;
+        event.outcome = "failed";
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response;
+            try {
+                response = client(supplierName).send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (HttpTimeoutException e) {
+                // Timeouts are sampled at the budget (the latency was at least that), so when part of the calls
+                // turn slow the percentile climbs and the timeout loosens, up to the ceiling
+                event.outcome = "timeout";
+                timeout.record(budget.toNanos());
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while calling supplier " + supplierName);
+            }
+
+            // The request timeout only covers the headers, so the rest of the budget bounds the body
+            InputStream body = response.body();
+            CompletableFuture<Void> deadline = closeAfter(body, budget.toNanos() - (System.nanoTime() - started));
+            try (body) {
+                int status = response.statusCode();
+                event.status = status;
+                if (status == 304 && previous != null) {
+                    event.outcome = "not-modified";
+                    event.flights = previous.flights().size();
+                    meterRegistry.counter("flights.supplier.not-modified", "supplier", supplierName).increment();
+                    return previous.flights();
+                }
+                if (status >= 400 && status < 500) {
+                    event.outcome = "client-error";
+                    logger.error("Client error from {} API: HTTP {}", supplierName, status);
+                    throw new SupplierClientErrorException("Supplier " + supplierName + " rejected the request: HTTP " + status,
+                            status, null);
+                }
+                if (status < 200 || status >= 300) {
+                    logger.error("Failed response from {} API: HTTP {}", supplierName, status);
+                    throw new FlightSupplierException("Failed to fetch flights from supplier " + supplierName + ": HTTP " + status);
+                }
+                List<FlightResponse> flights = read(supplierName, body, reader, filters, payloadLimits, event);
+                validators.put(supplierName, url, filters, response.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+                        response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null), flights);
+                return flights;
+            } catch (IOException e) {
+                if (deadline.isCompletedExceptionally()) {
+                    event.outcome = "timeout";
+                    throw new HttpTimeoutException("Supplier " + supplierName + " did not finish responding within " + budget.toMillis() + "ms");
+                }
+                throw e;
+            } finally {
+                // Completing the deadline cancels its timer; if it already fired, the call is sampled at the budget
+                timeout.record(deadline.complete(null) ? System.nanoTime() - started : budget.toNanos());
+            }
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Runs {@code sample} through the same streaming read, mapping and filtering as a search, without calling
+     * the supplier. Used by the startup warm-up, so the first searches don't pay for class loading and JIT.
+     */
+    public <T> List<FlightResponse> readSample(String supplierName, List<T> sample, Class<T> type,
+                                               Function<T, FlightResponse> mapper) throws IOException {
+        return readSample(supplierName, generator -> generator.writeObject(sample), reader(type, mapper));
+    }
+
+    /**
+     * Like {@link #readSample(String, List, Class, Function)}, for suppliers that write their own sample body.
+     */
+    public List<FlightResponse> readSample(String supplierName, SampleWriter writer, ElementReader reader)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+            writer.write(generator);
+        }
+        return read(supplierName, new ByteArrayInputStream(body.toByteArray()), reader, SAMPLE_FILTERS,
+                limits(supplierName), new SupplierCallEvent());
+    }
+
+    /**
+     * Returns the supplier's client, creating it on first use. Like the other per-supplier lookups, it
+     * checks the map before computeIfAbsent so the common path doesn't allocate a capturing lambda.
+     */
+    public HttpClient client(String supplierName) {
+        HttpClient existing = clients.get(supplierName);
+        if (existing != null) {
+            return existing;
+        }
+        return clients.computeIfAbsent(supplierName, name -> HttpClient.newBuilder()
+                .version(environment.getProperty("flights.supplier-http.version", HttpClient.Version.class,
+                        HttpClient.Version.HTTP_2))
+                .connectTimeout(DurationStyle.detectAndParse(
+                        environment.getProperty("flights.supplier-http.connect-timeout", "2s")))
+                .build());
+    }
+
+    private PayloadLimits limits(String supplierName) {
+        PayloadLimits existing = limits.get(supplierName);
+        if (existing != null) {
+            return existing;
+        }
+        return limits.computeIfAbsent(supplierName, this::loadLimits);
+    }
+
+    private AdaptiveTimeout timeout(String supplierName) {
+        AdaptiveTimeout existing = timeouts.get(supplierName);
+        if (existing != null) {
+            return existing;
+        }
+        return timeouts.computeIfAbsent(supplierName, name -> {
+            String prefix = "flights.supplier-timeout.";
+            AdaptiveTimeout timeout = new AdaptiveTimeout(
+                    environment.getProperty(prefix + "percentile", Double.class, 0.99),
+                    environment.getProperty(prefix + "factor", Double.class, 2.0),
+                    DurationStyle.detectAndParse(environment.getProperty(prefix + "floor", "300ms")),
+                    DurationStyle.detectAndParse(environment.getProperty(prefix + "ceiling", "5s")),
+                    environment.getProperty(prefix + "min-samples", Integer.class, 50),
+                    DurationStyle.detectAndParse(environment.getProperty(prefix + "window", "60s")),
+                    System::nanoTime);
+            Gauge.builder("flights.supplier.timeout", timeout, t -> t.current().toMillis())
+                    .tag("supplier", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            return timeout;
+        });
+    }
+
+    /**
+     * Opens {@code flights.warm-up.connections} connections to the supplier with concurrent HEAD requests.
+     * Over HTTP/2 they collapse onto a single multiplexed connection. Each request, and the wait for all of
+     * them, is bounded by {@code flights.warm-up.timeout}, so a supplier that never answers can't hold up
+     * startup. Failures, timeouts included, are only logged.
+     */
+    public void preconnect(String supplierName, String url) {
+        int connections = environment.getProperty("flights.warm-up.connections", Integer.class, 4);
+        Duration timeout = DurationStyle.detectAndParse(environment.getProperty("flights.warm-up.timeout", "2s"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build();
+        HttpClient client = client(supplierName);
+        CompletableFuture<?>[] calls = IntStream.range(0, connections)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding()))
+                .toArray(CompletableFuture[]::new);
+        try {
+            // The request timeout doesn't cover connecting, so the combined wait has its own bound
+            CompletableFuture.allOf(calls).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).join();
+            logger.info("Pre-opened connections to {} API", supplierName);
+        } catch (CompletionException e) {
+            logger.warn("Could not pre-open connections to {} API: {}", supplierName, e.getCause().toString());
+        }
+    }
+
+    // Closing the body wakes up a read blocked on the next chunk, which then fails with an IOException
+    private static CompletableFuture<Void> closeAfter(InputStream body, long nanos) {
+        CompletableFuture<Void> deadline = new CompletableFuture<>();
+        deadline.orTimeout(Math.max(0, nanos), TimeUnit.NANOSECONDS).whenComplete((ignored, e) -> {
+            if (e != null) {
+                try {
+                    body.close();
+                } catch (IOException closeFailure) {
+                    logger.debug("Could not close timed out supplier response", closeFailure);
+                }
+            }
+        });
+        return deadline;
+    }
+
+    private List<FlightResponse> read(String supplierName, InputStream body, ElementReader reader, SearchFilters filters,
+                                      PayloadLimits payloadLimits, SupplierCallEvent event) throws IOException {
+        List<FlightResponse> flights = new ArrayList<>();
+        PriorityQueue<FlightResponse> cheapest = null;
+        String truncatedBy = null;
+
+        LimitedInputStream limited = new LimitedInputStream(body, payloadLimits.maxBytes());
+        try (JsonParser parser = objectMapper.getFactory().createParser(limited)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new FlightSupplierException("Failed to fetch flights from supplier " + supplierName + ": empty or malformed body");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                FlightResponse flight = reader.read(parser);
+                if (flight == null
+                        || !filters.matches(flight.airline(), flight.fare(), flight.departureDate(), flight.arrivalDate())) {
+                    continue;
+                }
+                if (cheapest == null && flights.size() < payloadLimits.maxItems()) {
+                    flights.add(flight);
+                    continue;
+                }
+                // Over the item cap: switch to a max-heap so only the cheapest flights are kept
+                if (cheapest == null) {
+                    cheapest = new PriorityQueue<>(BY_FARE_DESC);
+                    cheapest.addAll(flights);
+                }
+                truncatedBy = "items";
+                if (!cheapest.isEmpty() && flight.fare() < cheapest.peek().fare()) {
+                    cheapest.poll();
+                    cheapest.add(flight);
+                }
+            }
+        } catch (IOException e) {
+            if (!isLimitExceeded(e)) {
+                throw e;
+            }
+            truncatedBy = "bytes";
+        } finally {
+            event.bytes = limited.count;
+        }
+
+        if (truncatedBy != null) {
+            logger.warn("Truncated response from {} API: {} cap reached", supplierName, truncatedBy);
+            meterRegistry.counter("flights.supplier.truncated", "supplier", supplierName, "reason", truncatedBy).increment();
+        }
+        event.outcome = truncatedBy == null ? "ok" : "truncated";
+        if (cheapest == null) {
+            event.flights = flights.size();
+            return flights;
+        }
+        event.flights = cheapest.size();
+        List<FlightResponse> kept = new ArrayList<>(cheapest);
+        kept.sort(BY_FARE_DESC.reversed());
+        return kept;
+    }
+
+    private <T> ElementReader reader(Class<T> type, Function<T, FlightResponse> mapper) {
+        return parser -> mapper.apply(objectMapper.readValue(parser, type));
+    }
+
+    private PayloadLimits loadLimits(String supplierName) {
+        String prefix = supplierName.toLowerCase(Locale.ROOT) + ".payload.";
+        String maxBytes = environment.getProperty(prefix + "max-bytes");
+        int maxItems = environment.getProperty(prefix + "max-items", Integer.class, Integer.MAX_VALUE);
+        return new PayloadLimits(maxBytes == null ? Long.MAX_VALUE : DataSize.parse(maxBytes).toBytes(), maxItems);
+    }
+
+    private static boolean isLimitExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PayloadLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface ElementReader {
+        // Returns null to drop the element
+        FlightResponse read(JsonParser parser) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SampleWriter {
+        // Writes a JSON array of flights in the supplier's format
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private record PayloadLimits(long maxBytes, int maxItems) {
+    }
+
+    private static final class PayloadLimitExceededException extends IOException {
+        PayloadLimitExceededException() {
+            super("Supplier payload limit exceeded");
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && ++count > maxBytes) {
+                throw new PayloadLimitExceededException();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (count >= maxBytes) {
+                // Either end of stream or one byte past the cap
+                return read();
+            }
+            int n = super.read(buffer, offset, (int) Math.min(length, maxBytes - count));
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
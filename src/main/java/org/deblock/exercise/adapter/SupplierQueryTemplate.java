@@ -0,0 +1,78 @@
+package org.deblock.exercise.adapter;
+
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.springframework.core.env.Environment;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Supplier search URL with its query parameter names compiled once per supplier: the base URL and each
+ * {@code name=} fragment are pre-encoded, and the request values are appended into a single presized
+ * buffer, so a call allocates little more than the URL string itself.
+ */
+final class SupplierQueryTemplate {
+
+    private final String[] prefixes;
+    private final int capacity;
+
+    SupplierQueryTemplate(String baseUrl, String origin, String destination, String departureDate,
+                          String returnDate, String passengers) {
+        String[] names = {origin, destination, departureDate, returnDate, passengers};
+        prefixes = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            String separator = i > 0 ? "&" : baseUrl.contains("?") ? "&" : "?";
+            prefixes[i] = (i == 0 ? baseUrl : "") + separator + UriUtils.encodeQueryParam(names[i], StandardCharsets.UTF_8) + "=";
+        }
+        // Room for two airport codes, two dates and a passenger count
+        capacity = String.join("", prefixes).length() + 32;
+    }
+
+    /**
+     * Reads the parameter names from {@code <supplier>.mapping.query.*}.
+     */
+    static SupplierQueryTemplate fromEnvironment(String supplierName, String baseUrl, Environment environment) {
+        String prefix = supplierName.toLowerCase(Locale.ROOT) + ".mapping.query.";
+        return new SupplierQueryTemplate(baseUrl,
+                environment.getRequiredProperty(prefix + "origin"),
+                environment.getRequiredProperty(prefix + "destination"),
+                environment.getRequiredProperty(prefix + "departure-date"),
+                environment.getRequiredProperty(prefix + "return-date"),
+                environment.getRequiredProperty(prefix + "passengers"));
+    }
+
+    String expand(SearchRequest request) {
+        StringBuilder url = new StringBuilder(capacity)
+                .append(prefixes[0]).append(encode(request.origin()))
+                .append(prefixes[1]).append(encode(request.destination()))
+                .append(prefixes[2]);
+        appendDate(url, request.departureDate());
+        url.append(prefixes[3]);
+        appendDate(url, request.returnDate());
+        return url.append(prefixes[4]).append(request.numberOfPassengers()).toString();
+    }
+
+    // ISO yyyy-MM-dd without the intermediate string LocalDate.toString() builds
+    private static void appendDate(StringBuilder url, LocalDate date) {
+        url.append(date.getYear()).append('-');
+        pad(url, date.getMonthValue()).append('-');
+        pad(url, date.getDayOfMonth());
+    }
+
+    private static StringBuilder pad(StringBuilder url, int value) {
+        return (value < 10 ? url.append('0') : url).append(value);
+    }
+
+    // Airport codes are validated upstream, so this only copies when a value actually needs escaping
+    private static String encode(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9')) {
+                return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8);
+            }
+        }
+        return value;
+    }
+}
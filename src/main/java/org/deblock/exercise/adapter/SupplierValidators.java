@@ -0,0 +1,63 @@
+package org.deblock.exercise.adapter;
+
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.domain.FlightResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last mapped result of each supplier call, with the ETag and Last-Modified validators it was served with,
+ * so a refresh can be a conditional request and a {@code 304} can reuse the flights without reading a body.
+ * Keyed by filters as well as URL, since filters are applied while mapping. Least recently used entries are
+ * evicted beyond {@code maxEntries}.
+ */
+final class SupplierValidators {
+
+    private final int maxEntries;
+
+    // Guarded by itself
+    private final Map<Key, Validated> entries;
+
+    SupplierValidators(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Validated> eldest) {
+                return size() > SupplierValidators.this.maxEntries;
+            }
+        };
+    }
+
+    Validated get(String supplierName, String url, SearchFilters filters) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        synchronized (entries) {
+            return entries.get(new Key(supplierName, url, filters));
+        }
+    }
+
+    // A response without validators can't be revalidated, so it replaces rather than refreshes the entry
+    void put(String supplierName, String url, SearchFilters filters, String etag, String lastModified,
+             List<FlightResponse> flights) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Key key = new Key(supplierName, url, filters);
+        synchronized (entries) {
+            if (etag == null && lastModified == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, new Validated(etag, lastModified, List.copyOf(flights)));
+            }
+        }
+    }
+
+    record Validated(String etag, String lastModified, List<FlightResponse> flights) {
+    }
+
+    private record Key(String supplierName, String url, SearchFilters filters) {
+    }
+}
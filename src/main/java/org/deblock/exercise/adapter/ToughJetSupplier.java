@@ -8,83 +8,92 @@ import org.deblock.exercise.exception.FlightSupplierException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 @Component
 public class ToughJetSupplier implements FlightSupplierClient {
 
-    private final RestTemplate restTemplate;
+    private final SupplierHttpClient supplierHttpClient;
 
     @Value("${toughjet.api.url}")
     String apiUrl;
 
     private final String supplierName = "ToughJet";
 
+    private SupplierQueryTemplate query;
+
     private static final Logger logger = LoggerFactory.getLogger(ToughJetSupplier.class);
 
-    public ToughJetSupplier(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public ToughJetSupplier(SupplierHttpClient supplierHttpClient) {
+        this.supplierHttpClient = supplierHttpClient;
+    }
+
+    // Runs once apiUrl has been injected
+    @PostConstruct
+    void buildQuery() {
+        query = new SupplierQueryTemplate(apiUrl, "from", "to", "outboundDate", "inboundDate", "numberOfAdults");
+    }
+
+    @Override
+    public String name() {
+        return supplierName;
+    }
+
+    @Override
+    public void warmUp() {
+        supplierHttpClient.preconnect(supplierName, apiUrl);
     }
 
     @Override
     @Async
     public CompletableFuture<List<FlightResponse>> search(SearchRequest request) {
-        String url = UriComponentsBuilder
-                .fromHttpUrl(apiUrl)
-                .queryParam("from", request.origin())
-                .queryParam("to", request.destination())
-                .queryParam("outboundDate", request.departureDate())
-                .queryParam("inboundDate", request.returnDate())
-                .queryParam("numberOfAdults", request.numberOfPassengers())
-                .toUriString();
+        String url = query.expand(request);
 
-        logger.info("Calling {} API with URL: {}", supplierName, url);
+        logger.debug("Calling {} API with URL: {}", supplierName, url);
 
         try {
-            ResponseEntity<List<ToughJetResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<ToughJetResponse>>() {}
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                 List<FlightResponse> result = response.getBody().stream()
-                        .map(res -> {
-                            double fare = (res.basePrice() + res.tax()) * (1 - res.discount() / 100);
-                            double roundedFare = Math.round(fare * 100.0) / 100.0;
-
-                            return new FlightResponse(
-                                    res.carrier(),
-                                    supplierName,
-                                    roundedFare,
-                                    res.departureAirportName(),
-                                    res.arrivalAirportName(),
-                                    res.outboundDateTime().atOffset(ZoneOffset.UTC).toLocalDateTime(),
-                                    res.inboundDateTime().atOffset(ZoneOffset.UTC).toLocalDateTime()
-                            );
-                        })
-                        .toList();
-                 return CompletableFuture.completedFuture(result);
-            } else {
-                logger.error("Failed response from {} API: HTTP {}", supplierName, response.getStatusCode());
-                throw new FlightSupplierException(String.format("Failed to fetch flights from supplier %s: HTTP %s",
-                        supplierName, response.getStatusCode()));
-            }
-        } catch (RestClientException e) {
+            List<FlightResponse> result = supplierHttpClient.get(supplierName, url, request.filters(), ToughJetResponse.class,
+                    this::map);
+            return CompletableFuture.completedFuture(result);
+        } catch (IOException e) {
             logger.error("Exception when calling {} API", supplierName, e);
-            throw new FlightSupplierException(String.format("Error calling supplier %s API", supplierName), e);
+            throw new FlightSupplierException("Error calling supplier " + supplierName + " API", e);
         }
     }
+
+    @Override
+    public List<FlightResponse> readSample(int flights) throws IOException {
+        LocalDateTime departure = LocalDateTime.now().plusDays(30).withNano(0);
+        List<ToughJetResponse> sample = IntStream.range(0, flights)
+                .mapToObj(i -> new ToughJetResponse("ToughJet" + i % 5, 40.0 + (i * 53) % 400, 10.0, (double) (i % 20),
+                        "LHR", "AMS", departure.plusMinutes(i * 7L), departure.plusMinutes(i * 7L + 80)))
+                .toList();
+        return supplierHttpClient.readSample(supplierName, sample, ToughJetResponse.class, this::map);
+    }
+
+    private FlightResponse map(ToughJetResponse res) {
+        return new FlightResponse(
+                res.carrier(),
+                supplierName,
+                fare(res),
+                res.departureAirportName(),
+                res.arrivalAirportName(),
+                res.outboundDateTime().atOffset(ZoneOffset.UTC).toLocalDateTime(),
+                res.inboundDateTime().atOffset(ZoneOffset.UTC).toLocalDateTime()
+        );
+    }
+
+    private static double fare(ToughJetResponse res) {
+        double fare = (res.basePrice() + res.tax()) * (1 - res.discount() / 100);
+        return Math.round(fare * 100.0) / 100.0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.deblock.exercise.cache;
+
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.SupplierStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A search result held in its encoded forms so cache hits can be written to the client without
+ * going through Jackson again. JSON is encoded up front, binary formats on first request.
+ */
+public record CachedSearchResult(List<FlightResponse> flights, Map<String, SupplierStatus> supplierStatuses,
+                                 Map<SearchFormat, EncodedBody> bodies, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return now - expiresAt >= 0;
+    }
+}
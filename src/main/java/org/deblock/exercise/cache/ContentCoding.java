@@ -0,0 +1,146 @@
+package org.deblock.exercise.cache;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings the search cache can pre-compress bodies with. Brotli is only offered when brotli4j
+ * and its native library are on the classpath; gzip is always available.
+ */
+public enum ContentCoding {
+
+    BR("br") {
+        @Override
+        public byte[] encode(byte[] body) {
+            try {
+                return (byte[]) BrotliHolder.COMPRESS.invokeExact(body);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Brotli compression failed", e);
+            }
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return BrotliHolder.COMPRESS != null;
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public byte[] encode(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    };
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public abstract byte[] encode(byte[] body);
+
+    public abstract boolean isAvailable();
+
+    /**
+     * Picks the coding with the highest q-value in {@code acceptEncoding} among {@code available},
+     * preferring declaration order (brotli first) on ties. Returns null for identity.
+     */
+    public static ContentCoding negotiate(String acceptEncoding, Set<ContentCoding> available) {
+        if (!StringUtils.hasText(acceptEncoding) || available.isEmpty()) {
+            return null;
+        }
+        ContentCoding best = null;
+        double bestQuality = 0;
+        for (ContentCoding coding : values()) {
+            if (!available.contains(coding)) {
+                continue;
+            }
+            double quality = quality(acceptEncoding, coding.token);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String acceptEncoding, String token) {
+        double wildcard = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim();
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(token)) {
+                return quality;
+            }
+            if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return wildcard;
+    }
+
+    private static final class BrotliHolder {
+
+        private static final String LOADER = "com.aayushatharva.brotli4j.Brotli4jLoader";
+        private static final String ENCODER = "com.aayushatharva.brotli4j.encoder.Encoder";
+
+        static final MethodHandle COMPRESS = lookup();
+
+        private static MethodHandle lookup() {
+            ClassLoader classLoader = ContentCoding.class.getClassLoader();
+            if (!ClassUtils.isPresent(ENCODER, classLoader)) {
+                return null;
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> loader = ClassUtils.forName(LOADER, classLoader);
+                boolean nativeAvailable = (boolean) lookup
+                        .findStatic(loader, "isAvailable", MethodType.methodType(boolean.class))
+                        .invoke();
+                if (!nativeAvailable) {
+                    return null;
+                }
+                return lookup.findStatic(ClassUtils.forName(ENCODER, classLoader), "compress",
+                        MethodType.methodType(byte[].class, byte[].class));
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.deblock.exercise.cache;
+
+import java.util.Map;
+
+/**
+ * One wire format of a cached search result. {@code compressed} only holds codings for bodies above
+ * the compression threshold.
+ */
+public record EncodedBody(byte[] bytes, Map<ContentCoding, byte[]> compressed, String etag) {
+
+    public byte[] body(ContentCoding coding) {
+        return coding == null ? bytes : compressed.get(coding);
+    }
+
+    // Each representation gets its own strong validator
+    public String etag(ContentCoding coding) {
+        return coding == null ? etag : etag.substring(0, etag.length() - 1) + "-" + coding.token() + "\"";
+    }
+}
@@ -0,0 +1,57 @@
+package org.deblock.exercise.cache;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire formats offered by {@code /flights}. The binary formats are Jackson backed, so they carry the
+ * same field names and values as the JSON contract.
+ */
+public enum SearchFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    SearchFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the most preferred format from an {@code Accept} header, falling back to JSON when the
+     * header is missing, malformed or only lists types we do not produce.
+     */
+    public static SearchFormat negotiate(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType candidate : acceptable) {
+            if (candidate.getQualityValue() == 0) {
+                continue;
+            }
+            for (SearchFormat format : values()) {
+                if (candidate.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,189 @@
+package org.deblock.exercise.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SupplierStatus;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of encoded search results keyed by {@link SearchRequest}. Results are serialized
+ * (and optionally compressed) once per format, so hits only copy bytes to the response.
+ */
+@Component
+public class SearchResultCache {
+
+    private final Map<SearchFormat, ObjectMapper> mappers = new EnumMap<>(SearchFormat.class);
+
+    private final Map<SearchRequest, CachedSearchResult> entries = new ConcurrentHashMap<>();
+
+    private final Map<SearchRequest, CompletableFuture<CachedSearchResult>> loading = new ConcurrentHashMap<>();
+
+    @Value("${flights.cache.ttl:30s}")
+    Duration ttl;
+
+    // Results missing a supplier (rate limited or failed) are only kept briefly, so one throttled call
+    // doesn't serve a partial list to everybody for the full TTL
+    @Value("${flights.cache.partial-ttl:2s}")
+    Duration partialTtl;
+
+    @Value("${flights.cache.max-entries:10000}")
+    int maxEntries;
+
+    @Value("${flights.cache.precompress:true}")
+    boolean precompress;
+
+    @Value("${flights.compression.min-size:1024}")
+    int compressionMinSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    // The binary mappers come from Boot's builder so spring.jackson.* (ISO dates, modules, inclusion)
+    // applies to every format, not just JSON
+    public SearchResultCache(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        mappers.put(SearchFormat.JSON, objectMapper);
+        mappers.put(SearchFormat.CBOR, objectMapperBuilder.factory(new CBORFactory()).build());
+        mappers.put(SearchFormat.SMILE, objectMapperBuilder.factory(new SmileFactory()).build());
+    }
+
+    public CachedSearchResult get(SearchRequest request) {
+        CachedSearchResult cached = entries.get(request);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(System.nanoTime())) {
+            entries.remove(request, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Returns the cached result, or loads and caches it. Concurrent misses for the same request wait on the
+     * one load already in flight rather than each calling the loader. A loader that throws fails only the
+     * caller that ran it; callers waiting on a load that fails get its exception.
+     */
+    public CompletableFuture<CachedSearchResult> getOrLoad(SearchRequest request,
+                                                           Supplier<CompletableFuture<FlightSearchResult>> loader) {
+        CachedSearchResult cached = get(request);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<CachedSearchResult> pending = new CompletableFuture<>();
+        CompletableFuture<CachedSearchResult> inFlight = loading.putIfAbsent(request, pending);
+        if (inFlight != null) {
+            // A copy, so one waiter cancelling doesn't cancel the others
+            return inFlight.copy();
+        }
+        // A load may have finished between the lookup and taking the slot
+        cached = get(request);
+        if (cached != null) {
+            loading.remove(request, pending);
+            pending.complete(cached);
+            return pending;
+        }
+        try {
+            loader.get().thenApply(result -> put(request, result)).whenComplete((result, ex) -> {
+                loading.remove(request, pending);
+                if (ex != null) {
+                    pending.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    pending.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            loading.remove(request, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        return pending.copy();
+    }
+
+    public CachedSearchResult put(SearchRequest request, FlightSearchResult searchResult) {
+        Map<SearchFormat, EncodedBody> bodies = new ConcurrentHashMap<>();
+        bodies.put(SearchFormat.JSON, encode(searchResult.flights(), SearchFormat.JSON));
+        Duration entryTtl = isPartial(searchResult) ? partialTtl : ttl;
+        CachedSearchResult result = new CachedSearchResult(searchResult.flights(), searchResult.supplierStatuses(),
+                bodies, System.nanoTime() + entryTtl.toNanos());
+        if (isEnabled() && entryTtl.compareTo(Duration.ZERO) > 0) {
+            evictIfFull();
+            entries.put(request, result);
+        }
+        return result;
+    }
+
+    // Binary formats are only encoded once somebody asks for them, then kept with the entry
+    public EncodedBody encoded(CachedSearchResult result, SearchFormat format) {
+        return result.bodies().computeIfAbsent(format, f -> encode(result.flights(), f));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static boolean isPartial(FlightSearchResult searchResult) {
+        return searchResult.supplierStatuses().values().stream().anyMatch(status -> status != SupplierStatus.OK);
+    }
+
+    private boolean isEnabled() {
+        return !ttl.isZero() && !ttl.isNegative() && maxEntries > 0;
+    }
+
+    private EncodedBody encode(List<FlightResponse> flights, SearchFormat format) {
+        try {
+            byte[] bytes = mappers.get(format).writeValueAsBytes(flights);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+            return new EncodedBody(bytes, compress(bytes), etag);
+        } catch (JsonProcessingException e) {
+            throw new FlightSearchException("Failed to encode flight search results as " + format, e);
+        }
+    }
+
+    private void evictIfFull() {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        Iterator<SearchRequest> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+        logger.debug("Search result cache trimmed to {} entries", entries.size());
+    }
+
+    private Map<ContentCoding, byte[]> compress(byte[] bytes) {
+        if (!precompress || bytes.length < compressionMinSize) {
+            return Map.of();
+        }
+        Map<ContentCoding, byte[]> compressed = new EnumMap<>(ContentCoding.class);
+        for (ContentCoding coding : ContentCoding.values()) {
+            if (coding.isAvailable()) {
+                compressed.put(coding, coding.encode(bytes));
+            }
+        }
+        return compressed;
+    }
+}
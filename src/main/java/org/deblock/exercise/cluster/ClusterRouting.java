@@ -0,0 +1,161 @@
+package org.deblock.exercise.cluster;
+
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.diagnostics.SearchTimings;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.service.SearchPriorityClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional cluster mode ({@code flights.cluster.enabled}). Every instance is configured with the same
+ * static peer list and hashes each search's route onto a consistent hash ring. Non-owners forward the
+ * search to the owning peer, so each route is fetched from suppliers and cached on one instance only.
+ * Requests that were already forwarded are always served locally, which rules out forwarding loops.
+ * A peer that can't be reached is skipped for {@code flights.cluster.peer-backoff}, so its routes are
+ * served locally meanwhile instead of every search first waiting on a failing connect.
+ */
+@Component
+public class ClusterRouting {
+
+    public static final String FORWARDED_HEADER = "X-Flights-Forwarded-By";
+
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING, HttpHeaders.ETAG, HttpHeaders.VARY, HttpHeaders.RETRY_AFTER, "X-Supplier-Status");
+
+    private final boolean enabled;
+    private final String self;
+    private final ConsistentHashRing ring;
+    private final Duration forwardTimeout;
+    private final Duration peerBackoff;
+    private final HttpClient httpClient;
+    // Peer -> System.nanoTime() until which it is skipped
+    private final Map<String, Long> backingOff = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRouting.class);
+
+    public ClusterRouting(@Value("${flights.cluster.enabled:false}") boolean enabled,
+                          @Value("${flights.cluster.self:}") String self,
+                          @Value("${flights.cluster.peers:}") List<String> peers,
+                          @Value("${flights.cluster.virtual-nodes:128}") int virtualNodes,
+                          @Value("${flights.cluster.forward-timeout:5s}") Duration forwardTimeout,
+                          @Value("${flights.cluster.connect-timeout:250ms}") Duration connectTimeout,
+                          @Value("${flights.cluster.peer-backoff:10s}") Duration peerBackoff) {
+        this.enabled = enabled && !peers.isEmpty();
+        this.self = self;
+        this.ring = new ConsistentHashRing(peers, virtualNodes);
+        this.forwardTimeout = forwardTimeout;
+        this.peerBackoff = peerBackoff;
+        // Peers are on the local network: a connect that takes longer than this won't succeed in time
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        if (this.enabled && !peers.contains(self)) {
+            logger.warn("flights.cluster.self {} is not one of the peers {}, every search will be forwarded", self, peers);
+        }
+    }
+
+    /**
+     * The peer that owns the request's route, or empty when it should be served here, including while
+     * the owner is backing off after a failed forward.
+     */
+    public Optional<String> remoteOwner(SearchRequest request, boolean forwarded) {
+        if (!enabled || forwarded) {
+            return Optional.empty();
+        }
+        String owner = ring.nodeFor(routeKey(request));
+        return owner.equals(self) || isBackingOff(owner) ? Optional.empty() : Optional.of(owner);
+    }
+
+    /**
+     * Replays a search against its owner and relays the owner's response as is. The priority this instance
+     * classified the search as travels with it, so a background search stays in the owner's background lane.
+     * A forward that fails without a response puts the owner in backoff.
+     */
+    public CompletableFuture<ResponseEntity<byte[]>> forward(String owner, String pathAndQuery, SearchPriority priority,
+                                                             String accept, String acceptEncoding, String ifNoneMatch) {
+        SearchTimings hop = new SearchTimings();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(owner + pathAndQuery))
+                .timeout(forwardTimeout)
+                .header(FORWARDED_HEADER, self)
+                .header(SearchPriorityClassifier.PRIORITY_HEADER, priority.name().toLowerCase(Locale.ROOT))
+                .GET();
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        backOff(owner, ex);
+                    }
+                })
+                .thenApply(response -> relay(response, hop));
+    }
+
+    private boolean isBackingOff(String peer) {
+        Long until = backingOff.get(peer);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        backingOff.remove(peer, until);
+        return false;
+    }
+
+    private void backOff(String peer, Throwable cause) {
+        if (peerBackoff.isZero() || peerBackoff.isNegative()) {
+            return;
+        }
+        if (backingOff.put(peer, System.nanoTime() + peerBackoff.toNanos()) == null) {
+            logger.warn("Forwarding to {} failed, serving its routes locally for {}: {}", peer, peerBackoff, cause.toString());
+        }
+    }
+
+    // Filters are left out so every filtered view of a route lands on the same instance
+    static String routeKey(SearchRequest request) {
+        return request.origin() + '|' + request.destination() + '|' + request.departureDate() + '|'
+                + request.returnDate() + '|' + request.numberOfPassengers();
+    }
+
+    // The owner's Server-Timing is relayed with the round trip to it appended as forward, which includes
+    // the owner's total
+    private static ResponseEntity<byte[]> relay(HttpResponse<byte[]> response, SearchTimings hop) {
+        hop.record(SearchTimings.FORWARD, hop.elapsedNanos());
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : FORWARDED_RESPONSE_HEADERS) {
+            response.headers().allValues(name).forEach(value -> headers.add(name, value));
+        }
+        List<String> ownerTimings = response.headers().allValues(SERVER_TIMING_HEADER);
+        headers.set(SERVER_TIMING_HEADER, ownerTimings.isEmpty()
+                ? hop.header()
+                : String.join(", ", ownerTimings) + ", " + hop.header());
+        return ResponseEntity.status(response.statusCode()).headers(headers).body(response.body());
+    }
+}
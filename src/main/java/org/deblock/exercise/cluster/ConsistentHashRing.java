@@ -0,0 +1,35 @@
+package org.deblock.exercise.cluster;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring with virtual nodes. Every instance builds the same ring from the same peer list, so
+ * they all agree on a key's owner, and adding or removing a peer only moves the keys next to its points.
+ */
+class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    String nodeFor(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        return ByteBuffer.wrap(DigestUtils.md5Digest(value.getBytes(StandardCharsets.UTF_8))).getLong();
+    }
+}
@@ -0,0 +1,61 @@
+package org.deblock.exercise.config;
+
+import org.deblock.exercise.service.SearchAdmissionControl;
+import org.deblock.exercise.service.SupplierLaneScheduler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Supplier calls block on HTTP, so they get their own pool instead of the common fork-join pool
+    @Bean
+    public ThreadPoolTaskExecutor supplierExecutor(@Value("${flights.supplier-executor.pool-size:32}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("supplier-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Work is queued per priority lane in front of the pool, never inside it. Only interactive queue wait
+    // feeds admission control, so a backlog of background crawls doesn't shed user searches.
+    @Bean
+    public SupplierLaneScheduler supplierLanes(@Qualifier("supplierExecutor") Executor supplierExecutor,
+                                               @Value("${flights.supplier-executor.pool-size:32}") int poolSize,
+                                               @Value("${flights.priority.reserved-interactive:8}") int reservedForInteractive,
+                                               @Value("${flights.priority.interactive-weight:4}") int interactiveWeight,
+                                               @Value("${flights.priority.background-weight:1}") int backgroundWeight,
+                                               SearchAdmissionControl admissionControl) {
+        return new SupplierLaneScheduler(supplierExecutor, poolSize, reservedForInteractive,
+                interactiveWeight, backgroundWeight, admissionControl::recordQueueWait);
+    }
+
+    // Fare-watch polls only start asynchronous searches, so a small pool serves any number of routes
+    @Bean
+    public ThreadPoolTaskScheduler fareWatchScheduler(@Value("${flights.watch.scheduler-pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("fare-watch-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    // Fare-watch sends block on slow clients; each route drains on at most one of these threads at a time
+    @Bean
+    public ThreadPoolTaskExecutor fareWatchDeliveryExecutor(@Value("${flights.watch.delivery-pool-size:8}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("fare-watch-send-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package org.deblock.exercise.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exits once the application is fully started, so the JVM can dump the classes it loaded into an
+ * AppCDS archive ({@code -XX:ArchiveClassesAtExit}). Used by the {@code cdsArchive} Gradle task.
+ */
+@Component
+@ConditionalOnProperty(name = "flights.cds.training", havingValue = "true")
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CdsTrainingRun.class);
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        logger.info("CDS training run started the application, exiting");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
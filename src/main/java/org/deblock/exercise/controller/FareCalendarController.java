@@ -0,0 +1,43 @@
+package org.deblock.exercise.controller;
+
+import org.deblock.exercise.controller.dto.CalendarRequest;
+import org.deblock.exercise.domain.DailyFare;
+import org.deblock.exercise.service.FareCalendarService;
+import org.deblock.exercise.service.SearchAdmissionControl;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/flights/calendar")
+@Validated
+public class FareCalendarController {
+
+    private final FareCalendarService fareCalendarService;
+
+    private final SearchAdmissionControl admissionControl;
+
+    public FareCalendarController(FareCalendarService fareCalendarService, SearchAdmissionControl admissionControl) {
+        this.fareCalendarService = fareCalendarService;
+        this.admissionControl = admissionControl;
+    }
+
+    // One admission slot per calendar; the day searches behind it are capped by the service
+    @GetMapping
+    public CompletableFuture<List<DailyFare>> cheapestFarePerDay(@Valid @ModelAttribute CalendarRequest calendarRequest) {
+        admissionControl.acquire();
+        try {
+            return fareCalendarService.cheapestPerDay(calendarRequest)
+                    .whenComplete((result, ex) -> admissionControl.release());
+        } catch (RuntimeException e) {
+            admissionControl.release();
+            throw e;
+        }
+    }
+}
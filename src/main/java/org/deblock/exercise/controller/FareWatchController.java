@@ -0,0 +1,57 @@
+package org.deblock.exercise.controller;
+
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.service.FareWatchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RestController
+@RequestMapping("/flights/watch")
+@Validated
+public class FareWatchController {
+
+    static final String FARE_CHANGES_EVENT = "fare-changes";
+
+    private final FareWatchService fareWatchService;
+
+    @Value("${flights.watch.subscription-timeout:30m}")
+    Duration subscriptionTimeout;
+
+    public FareWatchController(FareWatchService fareWatchService) {
+        this.fareWatchService = fareWatchService;
+    }
+
+    // Server-sent events: the current flights as "added" changes first, then only what changes
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watch(@Valid @ModelAttribute SearchRequest searchRequest,
+                            @Valid @ModelAttribute SearchFilters filters) {
+        SseEmitter emitter = new SseEmitter(subscriptionTimeout.toMillis());
+        AtomicReference<Runnable> unsubscribe = new AtomicReference<>(() -> {});
+        emitter.onCompletion(() -> unsubscribe.get().run());
+        emitter.onTimeout(() -> unsubscribe.get().run());
+        emitter.onError(e -> unsubscribe.get().run());
+
+        unsubscribe.set(fareWatchService.subscribe(searchRequest.withFilters(filters), changes -> {
+            try {
+                emitter.send(SseEmitter.event().name(FARE_CHANGES_EVENT).data(changes, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                throw new UncheckedIOException(e);
+            }
+        }));
+        return emitter;
+    }
+}
@@ -1,33 +1,190 @@
 package org.deblock.exercise.controller;
 
+import org.deblock.exercise.cache.CachedSearchResult;
+import org.deblock.exercise.cache.ContentCoding;
+import org.deblock.exercise.cache.EncodedBody;
+import org.deblock.exercise.cache.SearchFormat;
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.cluster.ClusterRouting;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
-import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.diagnostics.SearchTimings;
+import org.deblock.exercise.diagnostics.SlowSearchLog;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.service.SearchAdmissionControl;
 import org.deblock.exercise.service.SearchFlightsService;
+import org.deblock.exercise.service.SearchPriorityClassifier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/flights")
 @Validated
 public class FlightController {
 
+    static final String SUPPLIER_STATUS_HEADER = "X-Supplier-Status";
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
     @Autowired
     private final SearchFlightsService searchFlightsService;
 
-    public FlightController(SearchFlightsService searchFlightsService) {
+    private final SearchResultCache searchResultCache;
+
+    private final SearchAdmissionControl admissionControl;
+
+    private final ClusterRouting clusterRouting;
+
+    private final SearchPriorityClassifier priorityClassifier;
+
+    private final SlowSearchLog slowSearchLog;
+
+    public FlightController(SearchFlightsService searchFlightsService, SearchResultCache searchResultCache,
+                            SearchAdmissionControl admissionControl, ClusterRouting clusterRouting,
+                            SearchPriorityClassifier priorityClassifier, SlowSearchLog slowSearchLog) {
         this.searchFlightsService = searchFlightsService;
+        this.searchResultCache = searchResultCache;
+        this.admissionControl = admissionControl;
+        this.clusterRouting = clusterRouting;
+        this.priorityClassifier = priorityClassifier;
+        this.slowSearchLog = slowSearchLog;
     }
 
+    // Results are returned as pre-encoded bytes so cache hits skip Jackson entirely. The servlet thread
+    // is released while suppliers are being called.
     @GetMapping
-    public List<FlightResponse> searchFlights(@Valid @ModelAttribute SearchRequest request) {
-        return searchFlightsService.search(request);
+    public CompletableFuture<ResponseEntity<byte[]>> searchFlights(@Valid @ModelAttribute SearchRequest searchRequest,
+                                                                   @Valid @ModelAttribute SearchFilters filters,
+                                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                   @RequestHeader(value = ClusterRouting.FORWARDED_HEADER, required = false) String forwardedBy,
+                                                                   @RequestHeader(value = SearchPriorityClassifier.PRIORITY_HEADER, required = false) String priorityHeader,
+                                                                   @RequestHeader(value = SearchPriorityClassifier.API_KEY_HEADER, required = false) String apiKey,
+                                                                   HttpServletRequest servletRequest) {
+        SearchRequest request = searchRequest.withFilters(filters);
+        SearchPriority priority = priorityClassifier.classify(priorityHeader, apiKey);
+        SearchTimings timings = new SearchTimings();
+        servletRequest.setAttribute(SearchTimings.REQUEST_ATTRIBUTE, timings);
+        Optional<String> owner = clusterRouting.remoteOwner(request, forwardedBy != null);
+        if (owner.isPresent()) {
+            String pathAndQuery = servletRequest.getRequestURI() + "?" + servletRequest.getQueryString();
+            // An unreachable owner shouldn't fail the search, it is served locally instead
+            return clusterRouting.forward(owner.get(), pathAndQuery, priority, accept, acceptEncoding, ifNoneMatch)
+                    .exceptionallyCompose(ex -> {
+                        timings.record(SearchTimings.FORWARD, timings.elapsedNanos(), "failed");
+                        return localSearch(request, priority, accept, acceptEncoding, ifNoneMatch, timings);
+                    });
+        }
+        return localSearch(request, priority, accept, acceptEncoding, ifNoneMatch, timings);
+    }
+
+    // Timings cover this request only: a cache hit reports the lookup and rendering, not the original search
+    private CompletableFuture<ResponseEntity<byte[]>> localSearch(SearchRequest request, SearchPriority priority,
+                                                                  String accept, String acceptEncoding, String ifNoneMatch,
+                                                                  SearchTimings timings) {
+        long lookupStarted = System.nanoTime();
+        // The loader runs right after a missed lookup, so either way the cache metric is the lookup alone
+        CompletableFuture<CachedSearchResult> cached = searchResultCache.getOrLoad(request, () -> {
+            timings.record(SearchTimings.CACHE, System.nanoTime() - lookupStarted, "miss");
+            return admittedSearch(request, priority, timings);
+        });
+        // Neither a hit nor our own load: waiting on another request's search for the same key
+        if (!cached.isDone() && !timings.has(SearchTimings.CACHE)) {
+            timings.record(SearchTimings.CACHE, System.nanoTime() - lookupStarted, "shared");
+        }
+        return cached
+                .thenApply(result -> {
+                    if (!timings.has(SearchTimings.CACHE)) {
+                        timings.record(SearchTimings.CACHE, System.nanoTime() - lookupStarted, "hit");
+                    }
+                    return render(result, accept, acceptEncoding, ifNoneMatch, timings);
+                })
+                .whenComplete((response, ex) -> slowSearchLog.record(request, timings));
+    }
+
+    // Only cache misses reach the suppliers, so only they go through admission control
+    private CompletableFuture<FlightSearchResult> admittedSearch(SearchRequest request, SearchPriority priority,
+                                                                 SearchTimings timings) {
+        admissionControl.acquire();
+        try {
+            return searchFlightsService.searchAsync(request, priority, timings)
+                    .whenComplete((result, ex) -> admissionControl.release());
+        } catch (RuntimeException e) {
+            admissionControl.release();
+            throw e;
+        }
+    }
+
+    private ResponseEntity<byte[]> render(CachedSearchResult result, String accept, String acceptEncoding, String ifNoneMatch,
+                                          SearchTimings timings) {
+        long renderStarted = System.nanoTime();
+        SearchFormat format = SearchFormat.negotiate(accept);
+        EncodedBody body = searchResultCache.encoded(result, format);
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding, body.compressed().keySet());
+        String etag = body.etag(coding);
+        timings.record(SearchTimings.RENDER, System.nanoTime() - renderStarted);
+        timings.record(SearchTimings.TOTAL, timings.elapsedNanos());
+
+        if (matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .header(SERVER_TIMING_HEADER, timings.header())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(etag)
+                .header(SERVER_TIMING_HEADER, timings.header());
+        if (!result.supplierStatuses().isEmpty()) {
+            response.header(SUPPLIER_STATUS_HEADER, supplierStatuses(result));
+        }
+        if (coding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, coding.token());
+        }
+        return response.body(body.body(coding));
+    }
+
+    // e.g. "CrazyAir=ok, ToughJet=rate-limited"
+    private static String supplierStatuses(CachedSearchResult result) {
+        return result.supplierStatuses().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue().label())
+                .collect(Collectors.joining(", "));
+    }
+
+    // If-None-Match uses weak comparison, so W/ prefixed validators still match
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,43 @@
+package org.deblock.exercise.controller;
+
+import org.deblock.exercise.controller.dto.MultiLegSearchRequest;
+import org.deblock.exercise.domain.Itinerary;
+import org.deblock.exercise.service.MultiLegSearchService;
+import org.deblock.exercise.service.SearchAdmissionControl;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/flights/multi-leg")
+@Validated
+public class MultiLegSearchController {
+
+    private final MultiLegSearchService multiLegSearchService;
+
+    private final SearchAdmissionControl admissionControl;
+
+    public MultiLegSearchController(MultiLegSearchService multiLegSearchService, SearchAdmissionControl admissionControl) {
+        this.multiLegSearchService = multiLegSearchService;
+        this.admissionControl = admissionControl;
+    }
+
+    // A list of legs doesn't fit a query string, so this search is a POST with a JSON body
+    @PostMapping
+    public CompletableFuture<List<Itinerary>> searchItineraries(@Valid @RequestBody MultiLegSearchRequest request) {
+        admissionControl.acquire();
+        try {
+            return multiLegSearchService.search(request)
+                    .whenComplete((result, ex) -> admissionControl.release());
+        } catch (RuntimeException e) {
+            admissionControl.release();
+            throw e;
+        }
+    }
+}
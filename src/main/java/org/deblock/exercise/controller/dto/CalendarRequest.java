@@ -0,0 +1,35 @@
+package org.deblock.exercise.controller.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Departure dates {@code from} to {@code to}, both inclusive. Each day is searched as a return trip of
+ * {@code tripLength} days, so days line up with {@code /flights} searches and share their cache entries.
+ */
+public record CalendarRequest(
+        @NotBlank @Size(min = 3, max = 3) String origin,
+        @NotBlank @Size(min = 3, max = 3) String destination,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        @NotNull LocalDate from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        @NotNull LocalDate to,
+        @Min(0) @Max(30) int tripLength,
+        @NotNull @Min(1) @Max(4) int numberOfPassengers
+) {
+    public static final int MAX_DAYS = 62;
+
+    @AssertTrue(message = "to must not be before from, and the range is limited to " + MAX_DAYS + " days")
+    public boolean isValidRange() {
+        return from == null || to == null
+                || (!to.isBefore(from) && ChronoUnit.DAYS.between(from, to) < MAX_DAYS);
+    }
+
+    public SearchRequest searchFor(LocalDate departureDate) {
+        return new SearchRequest(origin, destination, departureDate, departureDate.plusDays(tripLength),
+                numberOfPassengers, SearchFilters.NONE);
+    }
+}
@@ -0,0 +1,33 @@
+package org.deblock.exercise.controller.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Multi-city or open-jaw trip: legs are flown in order and need not connect at the same airport.
+ * {@code limit} caps how many of the cheapest combined itineraries are returned.
+ */
+public record MultiLegSearchRequest(
+        @NotEmpty @Size(max = 6) List<@Valid @NotNull Leg> legs,
+        @NotNull @Min(1) @Max(4) int numberOfPassengers,
+        @Min(1) @Max(50) Integer limit
+) {
+    public static final int DEFAULT_LIMIT = 10;
+
+    public MultiLegSearchRequest {
+        limit = limit == null ? DEFAULT_LIMIT : limit;
+    }
+
+    public record Leg(
+            @NotBlank @Size(min = 3, max = 3) String origin,
+            @NotBlank @Size(min = 3, max = 3) String destination,
+            @NotNull LocalDate departureDate
+    ) {
+        // Suppliers only search return trips, so a leg is searched as a same-day return and only its outbound is used
+        public SearchRequest toSearchRequest(int numberOfPassengers) {
+            return new SearchRequest(origin, destination, departureDate, departureDate, numberOfPassengers, SearchFilters.NONE);
+        }
+    }
+}
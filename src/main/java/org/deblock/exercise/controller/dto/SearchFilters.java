@@ -0,0 +1,59 @@
+package org.deblock.exercise.controller.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Optional result filters applied by the supplier adapters while mapping, so flights the client
+ * would throw away never reach the merge, sort or serialization steps. Time windows wrap past
+ * midnight when {@code from} is after {@code to}.
+ */
+public record SearchFilters(
+        @PositiveOrZero Double maxFare,
+        List<String> airlines,
+        List<String> excludedAirlines,
+        @DateTimeFormat(pattern = "HH:mm") LocalTime departureFrom,
+        @DateTimeFormat(pattern = "HH:mm") LocalTime departureTo,
+        @DateTimeFormat(pattern = "HH:mm") LocalTime arrivalFrom,
+        @DateTimeFormat(pattern = "HH:mm") LocalTime arrivalTo
+) {
+    public static final SearchFilters NONE = new SearchFilters(null, null, null, null, null, null, null);
+
+    public SearchFilters {
+        airlines = airlines == null ? List.of() : List.copyOf(airlines);
+        excludedAirlines = excludedAirlines == null ? List.of() : List.copyOf(excludedAirlines);
+    }
+
+    public boolean matches(String airline, double fare, LocalDateTime departure, LocalDateTime arrival) {
+        if (maxFare != null && fare > maxFare) {
+            return false;
+        }
+        if (!airlines.isEmpty() && airlines.stream().noneMatch(a -> a.equalsIgnoreCase(airline))) {
+            return false;
+        }
+        if (excludedAirlines.stream().anyMatch(a -> a.equalsIgnoreCase(airline))) {
+            return false;
+        }
+        return within(departure, departureFrom, departureTo) && within(arrival, arrivalFrom, arrivalTo);
+    }
+
+    private static boolean within(LocalDateTime dateTime, LocalTime from, LocalTime to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        if (dateTime == null) {
+            return false;
+        }
+        LocalTime time = dateTime.toLocalTime();
+        boolean afterFrom = from == null || !time.isBefore(from);
+        boolean beforeTo = to == null || !time.isAfter(to);
+        if (from != null && to != null && from.isAfter(to)) {
+            return afterFrom || beforeTo;
+        }
+        return afterFrom && beforeTo;
+    }
+}
@@ -2,6 +2,7 @@ package org.deblock.exercise.controller.dto;
 
 import org.springframework.format.annotation.DateTimeFormat;
 
+import javax.validation.Valid;
 import javax.validation.constraints.*;
 import java.time.LocalDate;
 
@@ -12,5 +13,15 @@ public record SearchRequest(
         @NotNull LocalDate departureDate,
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
         @NotNull LocalDate returnDate,
-        @NotNull @Min(1) @Max(4) int numberOfPassengers
-) {}
\ No newline at end of file
+        @NotNull @Min(1) @Max(4) int numberOfPassengers,
+        @Valid SearchFilters filters
+) {
+    // Filters are bound separately from the query string, so a missing value means no filtering
+    public SearchRequest {
+        filters = filters == null ? SearchFilters.NONE : filters;
+    }
+
+    public SearchRequest withFilters(SearchFilters filters) {
+        return new SearchRequest(origin, destination, departureDate, returnDate, numberOfPassengers, filters);
+    }
+}
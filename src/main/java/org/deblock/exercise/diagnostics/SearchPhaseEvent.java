@@ -0,0 +1,44 @@
+package org.deblock.exercise.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one phase of a flight search: {@code fan-out}, {@code wait}, and per supplier batch
+ * {@code sort} and {@code merge}. Events of the same search share a search id.
+ */
+@Name("org.deblock.exercise.SearchPhase")
+@Label("Search Phase")
+@Category({"Deblock Flights", "Search"})
+@Description("Phase of a flight search")
+@StackTrace(false)
+public class SearchPhaseEvent extends Event {
+
+    public static final String FAN_OUT = "fan-out";
+    public static final String WAIT = "wait";
+    public static final String SORT = "sort";
+    public static final String MERGE = "merge";
+
+    @Label("Search Id")
+    public long searchId;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Supplier")
+    @Description("Set for per-supplier phases")
+    public String supplier;
+
+    public static SearchPhaseEvent start(long searchId, String phase, String supplier) {
+        SearchPhaseEvent event = new SearchPhaseEvent();
+        event.searchId = searchId;
+        event.phase = phase;
+        event.supplier = supplier;
+        event.begin();
+        return event;
+    }
+}
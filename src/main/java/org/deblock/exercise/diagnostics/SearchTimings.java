@@ -0,0 +1,86 @@
+package org.deblock.exercise.diagnostics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-request timing breakdown of a search, rendered as a {@code Server-Timing} header value, e.g.
+ * {@code cache;dur=412.3;desc="miss", fan-out;dur=0.2, queue;dur=1.5, supplier-crazyair;dur=398.0, ...}.
+ * Metrics keep the order they were first recorded in. Recording is thread safe, since suppliers
+ * complete on different threads.
+ */
+public class SearchTimings {
+
+    public static final String CACHE = "cache";
+    public static final String FAN_OUT = "fan-out";
+    public static final String QUEUE = "queue";
+    public static final String SUPPLIER_PREFIX = "supplier-";
+    public static final String WAIT = "wait";
+    public static final String MERGE = "merge";
+    public static final String RENDER = "render";
+    public static final String TOTAL = "total";
+    public static final String FORWARD = "forward";
+
+    // Where a search leaves its timings, so error responses can report them too
+    public static final String REQUEST_ATTRIBUTE = SearchTimings.class.getName();
+
+    private final long started = System.nanoTime();
+
+    // Guarded by this
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    public long elapsedNanos() {
+        return System.nanoTime() - started;
+    }
+
+    // Repeated names add up, e.g. merge time across supplier batches
+    public synchronized void record(String name, long nanos) {
+        metrics.computeIfAbsent(name, ignored -> new Metric()).nanos += nanos;
+    }
+
+    public synchronized void record(String name, long nanos, String description) {
+        Metric metric = metrics.computeIfAbsent(name, ignored -> new Metric());
+        metric.nanos += nanos;
+        metric.description = description;
+    }
+
+    // For waits that overlap across suppliers, where only the longest matters
+    public synchronized void recordMax(String name, long nanos) {
+        Metric metric = metrics.computeIfAbsent(name, ignored -> new Metric());
+        metric.nanos = Math.max(metric.nanos, nanos);
+    }
+
+    public synchronized boolean has(String name) {
+        return metrics.containsKey(name);
+    }
+
+    public synchronized long nanos(String name) {
+        Metric metric = metrics.get(name);
+        return metric == null ? 0 : metric.nanos;
+    }
+
+    public synchronized String header() {
+        StringBuilder header = new StringBuilder();
+        metrics.forEach((name, metric) -> {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", metric.nanos / 1_000_000.0));
+            if (metric.description != null) {
+                header.append(";desc=\"").append(metric.description).append('"');
+            }
+        });
+        return header.toString();
+    }
+
+    @Override
+    public String toString() {
+        return header();
+    }
+
+    private static final class Metric {
+        long nanos;
+        String description;
+    }
+}
@@ -0,0 +1,36 @@
+package org.deblock.exercise.diagnostics;
+
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the timing breakdown of searches slower than {@code flights.timing.slow-threshold}. Only a
+ * {@code flights.timing.slow-sample-rate} fraction of them is logged, so a supplier outage that slows
+ * every search doesn't flood the log.
+ */
+@Component
+public class SlowSearchLog {
+
+    @Value("${flights.timing.slow-threshold:2s}")
+    Duration threshold = Duration.ofSeconds(2);
+
+    @Value("${flights.timing.slow-sample-rate:0.1}")
+    double sampleRate = 0.1;
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowSearchLog.class);
+
+    public void record(SearchRequest request, SearchTimings timings) {
+        long elapsed = timings.elapsedNanos();
+        if (elapsed < threshold.toNanos() || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        logger.warn("Slow search {}-{} {}/{} x{} took {} ms: {}", request.origin(), request.destination(),
+                request.departureDate(), request.returnDate(), request.numberOfPassengers(), elapsed / 1_000_000, timings);
+    }
+}
@@ -0,0 +1,41 @@
+package org.deblock.exercise.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one supplier call made on behalf of a search. For an HTTP call the event duration is the
+ * call latency, from sending the request to the last byte read. Calls the search service answers without
+ * reaching the supplier, from the negative cache or because the supplier's rate limit was reached, are
+ * recorded too, with status 0 and no bytes read.
+ */
+@Name("org.deblock.exercise.SupplierCall")
+@Label("Supplier Call")
+@Category({"Deblock Flights", "Suppliers"})
+@Description("HTTP call made by a flight supplier adapter")
+@StackTrace(false)
+public class SupplierCallEvent extends Event {
+
+    @Label("Supplier")
+    public String supplier;
+
+    @Label("HTTP Status")
+    @Description("0 when no response was received")
+    public int status;
+
+    @Label("Outcome")
+    @Description("ok, truncated, not-modified, client-error, timeout, failed, negative-cached or rate-limited")
+    public String outcome;
+
+    @Label("Flights")
+    public int flights;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,27 @@
+package org.deblock.exercise.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+// Cheapest flight departing on a day; fare, airline and supplier are absent when none was found, and
+// failed is set only when the day's search failed, so it can't be mistaken for a day without flights
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DailyFare(LocalDate departureDate, Double fare, String airline, String supplier, Boolean failed) {
+
+    public DailyFare(LocalDate departureDate, Double fare, String airline, String supplier) {
+        this(departureDate, fare, airline, supplier, null);
+    }
+
+    public static DailyFare none(LocalDate departureDate) {
+        return new DailyFare(departureDate, null, null, null);
+    }
+
+    public static DailyFare failed(LocalDate departureDate) {
+        return new DailyFare(departureDate, null, null, null, true);
+    }
+
+    public static DailyFare of(LocalDate departureDate, FlightResponse cheapest) {
+        return new DailyFare(departureDate, cheapest.fare(), cheapest.airline(), cheapest.supplier());
+    }
+}
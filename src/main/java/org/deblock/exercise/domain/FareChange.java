@@ -0,0 +1,24 @@
+package org.deblock.exercise.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One change to a watched route: a flight appeared, disappeared, or its cheapest offer changed
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FareChange(String change, FlightResponse flight, Double previousFare) {
+
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+    public static final String CHANGED = "changed";
+
+    public static FareChange added(FlightResponse flight) {
+        return new FareChange(ADDED, flight, null);
+    }
+
+    public static FareChange removed(FlightResponse flight) {
+        return new FareChange(REMOVED, flight, null);
+    }
+
+    public static FareChange changed(FlightResponse flight, Double previousFare) {
+        return new FareChange(CHANGED, flight, previousFare);
+    }
+}
@@ -1,7 +1,18 @@
 package org.deblock.exercise.domain;
 
-import java.math.BigDecimal;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.List;
+
+public record FlightResponse(String airline, String supplier, Double fare, String departureAirportCode, String destinationAirportCode, LocalDateTime departureDate, LocalDateTime arrivalDate,
+                             @JsonInclude(JsonInclude.Include.NON_EMPTY) List<String> alternateSuppliers) {
+
+    public FlightResponse {
+        alternateSuppliers = alternateSuppliers == null ? List.of() : List.copyOf(alternateSuppliers);
+    }
 
-public record FlightResponse(String airline, String supplier, Double fare, String departureAirportCode, String destinationAirportCode, LocalDateTime departureDate, LocalDateTime arrivalDate) {
+    public FlightResponse(String airline, String supplier, Double fare, String departureAirportCode, String destinationAirportCode, LocalDateTime departureDate, LocalDateTime arrivalDate) {
+        this(airline, supplier, fare, departureAirportCode, destinationAirportCode, departureDate, arrivalDate, List.of());
+    }
 }
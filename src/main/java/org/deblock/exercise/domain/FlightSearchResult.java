@@ -0,0 +1,7 @@
+package org.deblock.exercise.domain;
+
+import java.util.List;
+import java.util.Map;
+
+public record FlightSearchResult(List<FlightResponse> flights, Map<String, SupplierStatus> supplierStatuses) {
+}
@@ -3,11 +3,24 @@ package org.deblock.exercise.domain;
 import org.deblock.exercise.controller.dto.SearchRequest;
 import org.springframework.scheduling.annotation.Async;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public interface FlightSupplierClient {
 
+    // Also used, lower-cased, as the supplier's property prefix
+    String name();
+
     @Async
     CompletableFuture<List<FlightResponse>> search(SearchRequest request);
+
+    // Opens connections to the supplier ahead of the first search, best effort
+    default void warmUp() {
+    }
+
+    // Maps a synthetic response of the given size the same way search does, without calling the supplier
+    default List<FlightResponse> readSample(int flights) throws IOException {
+        return List.of();
+    }
 }
@@ -0,0 +1,7 @@
+package org.deblock.exercise.domain;
+
+import java.util.List;
+
+// One flight per requested leg, in leg order
+public record Itinerary(double totalFare, List<FlightResponse> legs) {
+}
@@ -0,0 +1,8 @@
+package org.deblock.exercise.domain;
+
+public enum SearchPriority {
+    // User-facing searches, guaranteed a share of supplier capacity
+    INTERACTIVE,
+    // Partner crawls, pre-warming and polling, served from leftover capacity
+    BACKGROUND
+}
@@ -0,0 +1,17 @@
+package org.deblock.exercise.domain;
+
+public enum SupplierStatus {
+    OK("ok"),
+    FAILED("failed"),
+    RATE_LIMITED("rate-limited");
+
+    private final String label;
+
+    SupplierStatus(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -1,25 +1,31 @@
 package org.deblock.exercise.exception;
 
+import org.deblock.exercise.diagnostics.SearchTimings;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
+import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.Map;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
     @ExceptionHandler(FlightSupplierException.class)
-    public ResponseEntity<?> handleFlightSupplierException(FlightSupplierException ex) {
+    public ResponseEntity<?> handleFlightSupplierException(FlightSupplierException ex, HttpServletRequest request) {
         Map<String, Object> body = Map.of(
                 "timestamp", LocalDateTime.now(),
                 "error", "Flight supplier error",
                 "message", ex.getMessage()
         );
-        return new ResponseEntity<>(body, HttpStatus.BAD_GATEWAY);
+        return new ResponseEntity<>(body, serverTiming(request), HttpStatus.BAD_GATEWAY);
     }
 
     public ResponseEntity<?> handleFlightSearchException(FlightSearchException ex) {
@@ -31,6 +37,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_GATEWAY);
     }
 
+    @ExceptionHandler(SearchOverloadedException.class)
+    public ResponseEntity<?> handleSearchOverloadedException(SearchOverloadedException ex, HttpServletRequest request) {
+        Map<String, Object> body = Map.of(
+                "timestamp", LocalDateTime.now(),
+                "error", "Service overloaded",
+                "message", ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .headers(serverTiming(request))
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(body);
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<?> handleAsyncRequestTimeoutException(AsyncRequestTimeoutException ex, HttpServletRequest request) {
+        Map<String, Object> body = Map.of(
+                "timestamp", LocalDateTime.now(),
+                "error", "Flight search timed out",
+                "message", "Suppliers did not respond within the request timeout"
+        );
+        return new ResponseEntity<>(body, serverTiming(request), HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     @ExceptionHandler(BindException.class)
     public ResponseEntity<?> handleBindException(BindException ex) {
         String messages = ex.getBindingResult()
@@ -49,12 +78,24 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<?> handleGeneralException(Exception ex) {
+    public ResponseEntity<?> handleGeneralException(Exception ex, HttpServletRequest request) {
         Map<String, Object> body = Map.of(
                 "timestamp", LocalDateTime.now(),
                 "error", "Internal server error",
                 "message", ex.getMessage()
         );
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(body, serverTiming(request), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Searches leave their timings on the request, so a failed search still reports where its time went
+    private static HttpHeaders serverTiming(HttpServletRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        if (request.getAttribute(SearchTimings.REQUEST_ATTRIBUTE) instanceof SearchTimings timings) {
+            if (!timings.has(SearchTimings.TOTAL)) {
+                timings.record(SearchTimings.TOTAL, timings.elapsedNanos());
+            }
+            headers.set(SERVER_TIMING_HEADER, timings.header());
+        }
+        return headers;
     }
 }
@@ -0,0 +1,16 @@
+package org.deblock.exercise.exception;
+
+import java.time.Duration;
+
+public class SearchOverloadedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public SearchOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,14 @@
+package org.deblock.exercise.exception;
+
+public class SupplierClientErrorException extends FlightSupplierException {
+    private final int statusCode;
+
+    public SupplierClientErrorException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,7 @@
+package org.deblock.exercise.exception;
+
+public class SupplierRateLimitedException extends FlightSupplierException {
+    public SupplierRateLimitedException(String message) {
+        super(message);
+    }
+}
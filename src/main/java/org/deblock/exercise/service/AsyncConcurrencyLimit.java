@@ -0,0 +1,71 @@
+package org.deblock.exercise.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many asynchronous tasks are outstanding at once without blocking a thread per waiting task.
+ * Tasks beyond the cap are queued and started as earlier ones complete.
+ */
+class AsyncConcurrencyLimit {
+
+    private final int maxConcurrent;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    AsyncConcurrencyLimit(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        pending.add(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = task.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, ex) -> {
+                running.decrementAndGet();
+                drain();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    int running() {
+        return running.get();
+    }
+
+    // Only one thread drains at a time; a drain requested meanwhile, including by a task that completes
+    // synchronously inside next.run(), is left to that thread's loop. This keeps the stack flat however
+    // many queued tasks complete inline.
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (running.get() < maxConcurrent) {
+                Runnable next = pending.poll();
+                if (next == null) {
+                    break;
+                }
+                running.incrementAndGet();
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,69 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.CachedSearchResult;
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.CalendarRequest;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.DailyFare;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cheapest fare per departure day over a date range. Days already in the search result cache are
+ * answered from it; the rest are searched through {@link SearchFlightsService}, with at most
+ * {@code flights.calendar.max-concurrent-searches} day searches in flight across all calendar requests.
+ * Fresh day results are cached, so {@code /flights} benefits from them as well. Days whose search failed
+ * are marked {@code failed} rather than reported as having no flights.
+ */
+@Service
+public class FareCalendarService {
+
+    private final SearchFlightsService searchFlightsService;
+    private final SearchResultCache searchResultCache;
+    private final AsyncConcurrencyLimit concurrencyLimit;
+
+    private static final Logger logger = LoggerFactory.getLogger(FareCalendarService.class);
+
+    public FareCalendarService(SearchFlightsService searchFlightsService, SearchResultCache searchResultCache,
+                               @Value("${flights.calendar.max-concurrent-searches:8}") int maxConcurrentSearches) {
+        this.searchFlightsService = searchFlightsService;
+        this.searchResultCache = searchResultCache;
+        this.concurrencyLimit = new AsyncConcurrencyLimit(maxConcurrentSearches);
+    }
+
+    public CompletableFuture<List<DailyFare>> cheapestPerDay(CalendarRequest request) {
+        List<CompletableFuture<DailyFare>> days = request.from().datesUntil(request.to().plusDays(1))
+                .map(date -> cheapestOn(request, date))
+                .toList();
+        return CompletableFuture.allOf(days.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> days.stream().map(CompletableFuture::join).toList());
+    }
+
+    private CompletableFuture<DailyFare> cheapestOn(CalendarRequest request, LocalDate date) {
+        SearchRequest search = request.searchFor(date);
+        CachedSearchResult cached = searchResultCache.get(search);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cheapest(date, cached));
+        }
+        return concurrencyLimit.submit(() -> searchResultCache.getOrLoad(search, () -> searchFlightsService.searchAsync(search)))
+                .handle((result, ex) -> {
+                    if (ex != null) {
+                        // One failed day shouldn't sink the whole calendar
+                        logger.warn("Calendar search for {} failed: {}", date, ex.getMessage());
+                        return DailyFare.failed(date);
+                    }
+                    return cheapest(date, result);
+                });
+    }
+
+    // Cached flights are already sorted by fare
+    private static DailyFare cheapest(LocalDate date, CachedSearchResult result) {
+        return result.flights().isEmpty() ? DailyFare.none(date) : DailyFare.of(date, result.flights().get(0));
+    }
+}
@@ -0,0 +1,216 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FareChange;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.SearchPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Fare-watch subscriptions. Each distinct {@link SearchRequest} is polled once per
+ * {@code flights.watch.interval} however many subscribers it has. Subscribers get the full result as
+ * additions on subscribe, then only the differences between consecutive polls. Polls go through the
+ * search result cache, so they share supplier calls with {@code /flights}.
+ * <p>
+ * Sends can block on slow clients, so they run on {@code fareWatchDeliveryExecutor} rather than the poll
+ * scheduler or the thread that completed the search. Each route has an ordered outbox: snapshots and diffs
+ * are queued under the route lock in the order they were computed, and drained by one task at a time.
+ */
+@Service
+public class FareWatchService {
+
+    private final SearchFlightsService searchFlightsService;
+    private final SearchResultCache searchResultCache;
+    private final TaskScheduler scheduler;
+    private final Executor deliveryExecutor;
+
+    private final Map<SearchRequest, RouteWatch> routes = new ConcurrentHashMap<>();
+
+    @Value("${flights.watch.interval:30s}")
+    Duration interval;
+
+    private static final Logger logger = LoggerFactory.getLogger(FareWatchService.class);
+
+    public FareWatchService(SearchFlightsService searchFlightsService, SearchResultCache searchResultCache,
+                            @Qualifier("fareWatchScheduler") TaskScheduler scheduler,
+                            @Qualifier("fareWatchDeliveryExecutor") Executor deliveryExecutor) {
+        this.searchFlightsService = searchFlightsService;
+        this.searchResultCache = searchResultCache;
+        this.scheduler = scheduler;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Registers a listener for changes on a route and returns the action that unsubscribes it. A listener
+     * that throws is unsubscribed.
+     */
+    public Runnable subscribe(SearchRequest request, Consumer<List<FareChange>> listener) {
+        routes.compute(request, (key, existing) -> {
+            RouteWatch route = existing != null ? existing : new RouteWatch(key);
+            // Registering and queueing the snapshot under the route lock puts the snapshot before any diff
+            // the listener receives
+            synchronized (route) {
+                route.subscribers.add(listener);
+                if (route.latest != null && !route.latest.isEmpty()) {
+                    List<FareChange> snapshot = diff(List.of(), route.latest);
+                    enqueue(route, () -> deliver(route, listener, snapshot));
+                }
+            }
+            if (route.task == null) {
+                route.task = scheduler.scheduleAtFixedRate(() -> poll(route), interval);
+            }
+            return route;
+        });
+        return () -> unsubscribe(request, listener);
+    }
+
+    int routeCount() {
+        return routes.size();
+    }
+
+    private void unsubscribe(SearchRequest request, Consumer<List<FareChange>> listener) {
+        routes.computeIfPresent(request, (key, route) -> {
+            route.subscribers.remove(listener);
+            if (!route.subscribers.isEmpty()) {
+                return route;
+            }
+            route.task.cancel(false);
+            return null;
+        });
+    }
+
+    private void poll(RouteWatch route) {
+        // A slow search must not pile up polls for the same route
+        if (!route.polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            searchResultCache.getOrLoad(route.request, () -> searchFlightsService.searchAsync(route.request, SearchPriority.BACKGROUND))
+                    .whenComplete((result, ex) -> {
+                        try {
+                            if (ex != null) {
+                                logger.warn("Fare-watch poll for {} failed: {}", route.request, ex.getMessage());
+                            } else {
+                                publish(route, result.flights());
+                            }
+                        } finally {
+                            // Only once this poll's diff is queued, so diffs can't overlap
+                            route.polling.set(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            route.polling.set(false);
+            logger.warn("Fare-watch poll for {} failed: {}", route.request, e.getMessage());
+        }
+    }
+
+    // Only computes the diff and queues it, so it is safe on the thread that completed the search
+    private void publish(RouteWatch route, List<FlightResponse> flights) {
+        synchronized (route) {
+            List<FareChange> changes = diff(route.latest == null ? List.of() : route.latest, flights);
+            route.latest = flights;
+            if (changes.isEmpty()) {
+                return;
+            }
+            List<Consumer<List<FareChange>>> listeners = List.copyOf(route.subscribers);
+            enqueue(route, () -> listeners.forEach(listener -> deliver(route, listener, changes)));
+        }
+    }
+
+    // Caller holds the route lock
+    private void enqueue(RouteWatch route, Runnable delivery) {
+        route.outbox.add(delivery);
+        if (!route.draining) {
+            route.draining = true;
+            deliveryExecutor.execute(() -> drain(route));
+        }
+    }
+
+    private void drain(RouteWatch route) {
+        while (true) {
+            Runnable delivery;
+            synchronized (route) {
+                delivery = route.outbox.poll();
+                if (delivery == null) {
+                    route.draining = false;
+                    return;
+                }
+            }
+            delivery.run();
+        }
+    }
+
+    private void deliver(RouteWatch route, Consumer<List<FareChange>> listener, List<FareChange> changes) {
+        if (!route.subscribers.contains(listener)) {
+            return;
+        }
+        try {
+            listener.accept(changes);
+        } catch (RuntimeException e) {
+            logger.debug("Dropping fare-watch subscriber for {}: {}", route.request, e.getMessage());
+            unsubscribe(route.request, listener);
+        }
+    }
+
+    // Both lists are fare-sorted, so additions and changes come out cheapest first
+    static List<FareChange> diff(List<FlightResponse> previous, List<FlightResponse> current) {
+        Map<ItineraryKey, FlightResponse> before = new HashMap<>(previous.size() * 2);
+        for (FlightResponse flight : previous) {
+            before.put(ItineraryKey.of(flight), flight);
+        }
+        List<FareChange> changes = new ArrayList<>();
+        Set<ItineraryKey> seen = new HashSet<>(current.size() * 2);
+        for (FlightResponse flight : current) {
+            ItineraryKey key = ItineraryKey.of(flight);
+            seen.add(key);
+            FlightResponse old = before.get(key);
+            if (old == null) {
+                changes.add(FareChange.added(flight));
+            } else if (!old.fare().equals(flight.fare()) || !old.supplier().equals(flight.supplier())) {
+                changes.add(FareChange.changed(flight, old.fare()));
+            }
+        }
+        for (FlightResponse flight : previous) {
+            if (!seen.contains(ItineraryKey.of(flight))) {
+                changes.add(FareChange.removed(flight));
+            }
+        }
+        return changes;
+    }
+
+    private static final class RouteWatch {
+        final SearchRequest request;
+        final Set<Consumer<List<FareChange>>> subscribers = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean polling = new AtomicBoolean();
+        ScheduledFuture<?> task;
+        // Guarded by this
+        List<FlightResponse> latest;
+        final Queue<Runnable> outbox = new ArrayDeque<>();
+        boolean draining;
+
+        RouteWatch(SearchRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.diagnostics.SearchPhaseEvent;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SupplierStatus;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.deblock.exercise.exception.SupplierRateLimitedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Merges supplier batches into a fare-sorted list as each supplier completes. Batches are sorted on
+ * the completing thread and then merged linearly, so nothing is left to sort once the last supplier
+ * has answered. The same itinerary sold by several suppliers is collapsed to its cheapest offer, with
+ * the other suppliers listed as alternates.
+ */
+class IncrementalFlightMerger {
+
+    static final Comparator<FlightResponse> BY_FARE = Comparator.comparingDouble(FlightResponse::fare);
+
+    private final int expectedBatches;
+    private final long searchId;
+    private final List<Throwable> failures = new ArrayList<>();
+    private final Map<String, SupplierStatus> statuses = new TreeMap<>();
+    private final Map<ItineraryKey, FlightResponse> itineraries = new HashMap<>();
+    private List<FlightResponse> merged = List.of();
+
+    IncrementalFlightMerger(int expectedBatches) {
+        this(expectedBatches, 0);
+    }
+
+    IncrementalFlightMerger(int expectedBatches, long searchId) {
+        this.expectedBatches = expectedBatches;
+        this.searchId = searchId;
+    }
+
+    void add(String supplier, List<FlightResponse> batch) {
+        SearchPhaseEvent sortPhase = SearchPhaseEvent.start(searchId, SearchPhaseEvent.SORT, supplier);
+        List<FlightResponse> sorted = new ArrayList<>(batch);
+        sorted.sort(BY_FARE);
+        sortPhase.commit();
+
+        // Includes waiting for the lock while another supplier's batch is merged
+        SearchPhaseEvent mergePhase = SearchPhaseEvent.start(searchId, SearchPhaseEvent.MERGE, supplier);
+        synchronized (this) {
+            Set<FlightResponse> superseded = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<FlightResponse> incoming = collapseDuplicates(sorted, superseded);
+            merged = merge(merged, incoming, superseded);
+            statuses.put(supplier, SupplierStatus.OK);
+        }
+        mergePhase.commit();
+    }
+
+    synchronized void fail(String supplier, Throwable failure) {
+        failures.add(failure);
+        statuses.put(supplier, isRateLimited(failure) ? SupplierStatus.RATE_LIMITED : SupplierStatus.FAILED);
+    }
+
+    synchronized FlightSearchResult result() {
+        if (failures.size() == expectedBatches) {
+            throw new FlightSearchException("Failed to fetch flight search details from all suppliers", failures.get(0));
+        }
+        return new FlightSearchResult(List.copyOf(merged), Collections.unmodifiableMap(new TreeMap<>(statuses)));
+    }
+
+    private static boolean isRateLimited(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SupplierRateLimitedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // One hash lookup per incoming flight; entries that lose their slot are marked superseded, and pending ones
+    // are then dropped from this batch in a single pass
+    private List<FlightResponse> collapseDuplicates(List<FlightResponse> sorted, Set<FlightResponse> superseded) {
+        List<FlightResponse> incoming = new ArrayList<>(sorted.size());
+        Set<FlightResponse> fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean reordered = false;
+        boolean collapsedPending = false;
+        for (FlightResponse flight : sorted) {
+            ItineraryKey key = ItineraryKey.of(flight);
+            FlightResponse existing = itineraries.get(key);
+            FlightResponse winner = flight;
+            if (existing != null) {
+                winner = flight.fare() < existing.fare()
+                        ? withAlternates(flight, existing)
+                        : withAlternates(existing, flight);
+                reordered |= winner.fare() < flight.fare();
+                // A duplicate within this batch is still pending, otherwise it is already merged
+                collapsedPending |= fresh.remove(existing);
+                superseded.add(existing);
+            }
+            itineraries.put(key, winner);
+            incoming.add(winner);
+            fresh.add(winner);
+        }
+        if (collapsedPending) {
+            incoming.removeIf(superseded::contains);
+        }
+        if (reordered) {
+            incoming.sort(BY_FARE);
+        }
+        return incoming;
+    }
+
+    private static FlightResponse withAlternates(FlightResponse cheapest, FlightResponse other) {
+        Set<String> alternates = new LinkedHashSet<>(cheapest.alternateSuppliers());
+        alternates.add(other.supplier());
+        alternates.addAll(other.alternateSuppliers());
+        alternates.remove(cheapest.supplier());
+        return new FlightResponse(cheapest.airline(), cheapest.supplier(), cheapest.fare(),
+                cheapest.departureAirportCode(), cheapest.destinationAirportCode(),
+                cheapest.departureDate(), cheapest.arrivalDate(), List.copyOf(alternates));
+    }
+
+    private static List<FlightResponse> merge(List<FlightResponse> left, List<FlightResponse> right,
+                                              Set<FlightResponse> superseded) {
+        List<FlightResponse> out = new ArrayList<>(left.size() + right.size());
+        int i = 0;
+        int j = 0;
+        while (i < left.size() || j < right.size()) {
+            if (i < left.size() && superseded.contains(left.get(i))) {
+                i++;
+                continue;
+            }
+            // <= keeps earlier batches first on equal fares
+            if (j == right.size() || (i < left.size() && BY_FARE.compare(left.get(i), right.get(j)) <= 0)) {
+                out.add(left.get(i++));
+            } else {
+                out.add(right.get(j++));
+            }
+        }
+        return out;
+    }
+}
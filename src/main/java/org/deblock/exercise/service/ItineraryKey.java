@@ -0,0 +1,15 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.FlightResponse;
+
+import java.time.LocalDateTime;
+
+// Identifies the same flight across suppliers and across successive searches
+record ItineraryKey(String airline, String departureAirportCode, String destinationAirportCode,
+                    LocalDateTime departureDate, LocalDateTime arrivalDate) {
+
+    static ItineraryKey of(FlightResponse flight) {
+        return new ItineraryKey(flight.airline(), flight.departureAirportCode(), flight.destinationAirportCode(),
+                flight.departureDate(), flight.arrivalDate());
+    }
+}
@@ -0,0 +1,48 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.CachedSearchResult;
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.MultiLegSearchRequest;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.Itinerary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Searches every leg of a multi-leg trip in parallel, through the search result cache, and joins the
+ * fare-sorted legs into the cheapest itineraries with {@link TopKItineraryJoin}.
+ */
+@Service
+public class MultiLegSearchService {
+
+    private final SearchFlightsService searchFlightsService;
+    private final SearchResultCache searchResultCache;
+
+    @Value("${flights.multi-leg.min-connection:1h}")
+    Duration minConnection;
+
+    @Value("${flights.multi-leg.max-expansions:100000}")
+    int maxExpansions;
+
+    public MultiLegSearchService(SearchFlightsService searchFlightsService, SearchResultCache searchResultCache) {
+        this.searchFlightsService = searchFlightsService;
+        this.searchResultCache = searchResultCache;
+    }
+
+    public CompletableFuture<List<Itinerary>> search(MultiLegSearchRequest request) {
+        List<CompletableFuture<CachedSearchResult>> legs = request.legs().stream()
+                .map(leg -> {
+                    SearchRequest search = leg.toSearchRequest(request.numberOfPassengers());
+                    return searchResultCache.getOrLoad(search, () -> searchFlightsService.searchAsync(search));
+                })
+                .toList();
+        return CompletableFuture.allOf(legs.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> TopKItineraryJoin.cheapest(
+                        legs.stream().map(leg -> leg.join().flights()).toList(),
+                        request.limit(), minConnection, maxExpansions));
+    }
+}
@@ -0,0 +1,70 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.exception.SearchOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds searches that would only add to an overloaded supplier fan-out. A search is rejected when
+ * too many are already in flight, or when supplier tasks are spending too long queued for a thread.
+ */
+@Component
+public class SearchAdmissionControl {
+
+    private static final double ALPHA = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double queueWaitNanos;
+
+    @Value("${flights.admission.max-concurrent:200}")
+    int maxConcurrent;
+
+    @Value("${flights.admission.max-queue-wait:500ms}")
+    Duration maxQueueWait;
+
+    @Value("${flights.admission.retry-after:1s}")
+    Duration retryAfter;
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchAdmissionControl.class);
+
+    /**
+     * Admits a search or throws {@link SearchOverloadedException}. Every successful call must be
+     * paired with {@link #release()}.
+     */
+    public void acquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > maxConcurrent) {
+            inFlight.decrementAndGet();
+            throw reject("Too many searches in flight");
+        }
+        // Only trust the queue signal while work is running, otherwise it would never recover
+        if (current > 1 && queueWaitNanos > maxQueueWait.toNanos()) {
+            inFlight.decrementAndGet();
+            throw reject("Supplier queue wait too high");
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void recordQueueWait(long nanos) {
+        queueWaitNanos += ALPHA * (nanos - queueWaitNanos);
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private SearchOverloadedException reject(String reason) {
+        logger.warn("Rejecting search: {} (in flight {}, queue wait {} ms)",
+                reason, inFlight.get(), (long) (queueWaitNanos / 1_000_000));
+        return new SearchOverloadedException(reason, retryAfter);
+    }
+}
@@ -1,56 +1,156 @@
 package org.deblock.exercise.service;
 
 import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.diagnostics.SearchPhaseEvent;
+import org.deblock.exercise.diagnostics.SearchTimings;
+import org.deblock.exercise.diagnostics.SupplierCallEvent;
 import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
 import org.deblock.exercise.domain.FlightSupplierClient;
-import org.deblock.exercise.exception.FlightSearchException;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.exception.SupplierRateLimitedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SearchFlightsService {
+    private static final AtomicLong SEARCH_IDS = new AtomicLong();
+
     private final List<FlightSupplierClient> suppliers;
+    private final SupplierLaneScheduler supplierLanes;
+    private final SupplierRateLimiters rateLimiters;
+    private final SupplierNegativeCache negativeCache;
     private static final Logger logger = LoggerFactory.getLogger(SearchFlightsService.class);
 
-    public SearchFlightsService(List<FlightSupplierClient> suppliers) {
+    public SearchFlightsService(List<FlightSupplierClient> suppliers,
+                                SupplierLaneScheduler supplierLanes,
+                                SupplierRateLimiters rateLimiters,
+                                SupplierNegativeCache negativeCache) {
         this.suppliers = suppliers;
+        this.supplierLanes = supplierLanes;
+        this.rateLimiters = rateLimiters;
+        this.negativeCache = negativeCache;
     }
 
     public List<FlightResponse> search(SearchRequest request) {
-        List<CompletableFuture<List<FlightResponse>>> futures = suppliers.stream()
-                .map(supplier -> CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return supplier.search(request).join();
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed supplier: " + supplier.getClass().getSimpleName(), e);
-                    }
-                }))
-                .toList();
-
-        List<FlightResponse> allResults = new ArrayList<>();
-        List<Throwable> failures = new ArrayList<>();
-
-        for (CompletableFuture<List<FlightResponse>> future : futures) {
-            try {
-                allResults.addAll(future.join());
-            } catch (Exception e) {
-                failures.add(e);
+        try {
+            return searchAsync(request).join().flights();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<FlightSearchResult> searchAsync(SearchRequest request) {
+        return searchAsync(request, SearchPriority.INTERACTIVE);
+    }
+
+    // Completes once every supplier has answered, without holding the calling thread. Each supplier's
+    // results are merged as soon as they arrive rather than in supplier order.
+    public CompletableFuture<FlightSearchResult> searchAsync(SearchRequest request, SearchPriority priority) {
+        return searchAsync(request, priority, new SearchTimings());
+    }
+
+    /**
+     * As {@link #searchAsync(SearchRequest, SearchPriority)}, recording fan-out, the longest supplier queue
+     * wait, each supplier's call, the wait for the slowest supplier and merge time into {@code timings}.
+     */
+    public CompletableFuture<FlightSearchResult> searchAsync(SearchRequest request, SearchPriority priority,
+                                                             SearchTimings timings) {
+        Executor lane = supplierLanes.lane(priority);
+        long searchId = SEARCH_IDS.incrementAndGet();
+        SearchPhaseEvent fanOut = SearchPhaseEvent.start(searchId, SearchPhaseEvent.FAN_OUT, null);
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(suppliers.size(), searchId);
+
+        long fanOutStarted = System.nanoTime();
+        CompletableFuture<?>[] completions = suppliers.stream()
+                .map(supplier -> CompletableFuture.supplyAsync(() -> timedCall(supplier, request, fanOutStarted, timings), lane)
+                        .handle((flights, ex) -> {
+                            if (ex != null) {
+                                logger.warn("Supplier {} failed: {}", supplier.name(), ex.getMessage());
+                                merger.fail(supplier.name(), new RuntimeException("Failed supplier: " + supplier.name(), ex));
+                            } else {
+                                long mergeStarted = System.nanoTime();
+                                merger.add(supplier.name(), flights);
+                                timings.record(SearchTimings.MERGE, System.nanoTime() - mergeStarted);
+                            }
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+        fanOut.commit();
+        long waitStarted = System.nanoTime();
+        timings.record(SearchTimings.FAN_OUT, waitStarted - fanOutStarted);
+
+        SearchPhaseEvent wait = SearchPhaseEvent.start(searchId, SearchPhaseEvent.WAIT, null);
+        return CompletableFuture.allOf(completions)
+                .thenApply(ignored -> {
+                    wait.commit();
+                    timings.record(SearchTimings.WAIT, System.nanoTime() - waitStarted);
+                    return merger.result();
+                });
+    }
+
+    private List<FlightResponse> timedCall(FlightSupplierClient supplier, SearchRequest request, long submitted,
+                                           SearchTimings timings) {
+        long started = System.nanoTime();
+        timings.recordMax(SearchTimings.QUEUE, started - submitted);
+        try {
+            return call(supplier, request);
+        } finally {
+            timings.record(SearchTimings.SUPPLIER_PREFIX + supplier.name().toLowerCase(Locale.ROOT),
+                    System.nanoTime() - started);
         }
+    }
 
-        if (failures.size() == suppliers.size()) {
-            throw new FlightSearchException("Failed to fetch flight search details from all suppliers", failures.get(0));
+    // Calls answered here without reaching the supplier get their own SupplierCallEvent; calls that do reach
+    // it are recorded by the adapter's HTTP client
+    private List<FlightResponse> call(FlightSupplierClient supplier, SearchRequest request) {
+        SupplierCallEvent skipped = new SupplierCallEvent();
+        skipped.supplier = supplier.name();
+        skipped.begin();
+        List<FlightResponse> negative;
+        try {
+            negative = negativeCache.lookup(supplier.name(), request);
+        } catch (RuntimeException e) {
+            commitSkipped(skipped, "negative-cached", 0);
+            throw e;
+        }
+        if (negative != null) {
+            commitSkipped(skipped, "negative-cached", negative.size());
+            return negative;
+        }
+        // The event's duration covers any wait for a permit
+        if (!rateLimiters.acquire(supplier.name())) {
+            commitSkipped(skipped, "rate-limited", 0);
+            throw new SupplierRateLimitedException("Skipped supplier " + supplier.name() + ": rate limit reached");
         }
 
-        return allResults.stream()
-                .sorted(Comparator.comparingDouble(FlightResponse::fare))
-                .toList();
+        List<FlightResponse> flights;
+        try {
+            flights = supplier.search(request).join();
+        } catch (RuntimeException e) {
+            negativeCache.recordFailure(supplier.name(), request, e);
+            throw e;
+        }
+        if (flights.isEmpty()) {
+            negativeCache.recordEmpty(supplier.name(), request);
+        }
+        return flights;
+    }
 
+    private static void commitSkipped(SupplierCallEvent event, String outcome, int flights) {
+        event.outcome = outcome;
+        event.flights = flights;
+        event.commit();
     }
 }
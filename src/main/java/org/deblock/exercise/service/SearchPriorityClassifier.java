@@ -0,0 +1,29 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.SearchPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Assigns a search to a priority lane. API keys listed in {@code flights.priority.background-api-keys} are
+ * always background; other callers may opt into the background lane with {@code X-Search-Priority: background},
+ * but nobody can opt out of it.
+ */
+@Component
+public class SearchPriorityClassifier {
+
+    public static final String PRIORITY_HEADER = "X-Search-Priority";
+    public static final String API_KEY_HEADER = "X-Api-Key";
+
+    @Value("${flights.priority.background-api-keys:}")
+    List<String> backgroundApiKeys = List.of();
+
+    public SearchPriority classify(String priorityHeader, String apiKey) {
+        if (apiKey != null && backgroundApiKeys.contains(apiKey)) {
+            return SearchPriority.BACKGROUND;
+        }
+        return "background".equalsIgnoreCase(priorityHeader) ? SearchPriority.BACKGROUND : SearchPriority.INTERACTIVE;
+    }
+}
@@ -0,0 +1,75 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.CachedSearchResult;
+import org.deblock.exercise.cache.SearchFormat;
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.FlightSupplierClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs synthetic supplier parsing, mapping, merging and serialization loops, and pre-opens supplier
+ * connections, before the application is marked ready. Application runners complete before Spring Boot
+ * publishes {@code ReadinessState.ACCEPTING_TRAFFIC}, so the readiness probe stays down until this is done.
+ * Each supplier maps its sample through the same read path as a real search ({@link FlightSupplierClient#readSample}).
+ */
+@Component
+@ConditionalOnProperty(name = "flights.warm-up.enabled", havingValue = "true")
+public class StartupWarmUp implements ApplicationRunner {
+
+    private final List<FlightSupplierClient> suppliers;
+    private final SearchResultCache searchResultCache;
+
+    @Value("${flights.warm-up.iterations:200}")
+    int iterations;
+
+    @Value("${flights.warm-up.flights-per-supplier:100}")
+    int flightsPerSupplier;
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    public StartupWarmUp(List<FlightSupplierClient> suppliers, SearchResultCache searchResultCache) {
+        this.suppliers = suppliers;
+        this.searchResultCache = searchResultCache;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        suppliers.parallelStream().forEach(FlightSupplierClient::warmUp);
+        try {
+            for (int i = 0; i < iterations; i++) {
+                search();
+            }
+        } catch (Exception e) {
+            // A failed warm-up only costs latency, it must not keep the instance out of rotation
+            logger.warn("Startup warm-up failed", e);
+        }
+        logger.info("Startup warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void search() throws IOException {
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(suppliers.size());
+        for (FlightSupplierClient supplier : suppliers) {
+            merger.add(supplier.name(), supplier.readSample(flightsPerSupplier));
+        }
+
+        FlightSearchResult result = merger.result();
+        CachedSearchResult cached = new CachedSearchResult(result.flights(), result.supplierStatuses(),
+                new ConcurrentHashMap<>(), 0);
+        for (SearchFormat format : SearchFormat.values()) {
+            searchResultCache.encoded(cached, format);
+        }
+    }
+}
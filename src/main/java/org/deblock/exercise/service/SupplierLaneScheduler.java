@@ -0,0 +1,116 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.SearchPriority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
+
+/**
+ * Weighted scheduler in front of the supplier executor. At most {@code capacity} supplier calls are handed
+ * to the executor at once; the rest wait in a queue per lane. When both lanes have work, free slots go to
+ * interactive and background calls in the ratio of their weights, and background calls never hold more
+ * than {@code capacity - reservedForInteractive} slots, so interactive searches always have capacity left.
+ */
+public class SupplierLaneScheduler {
+
+    private final Executor delegate;
+    private final int capacity;
+    private final int maxBackground;
+    private final int interactiveWeight;
+    private final int backgroundWeight;
+    private final LongConsumer interactiveQueueWait;
+
+    private final Queue<Queued> interactive = new ArrayDeque<>();
+    private final Queue<Queued> background = new ArrayDeque<>();
+    private final Executor interactiveLane = task -> submit(SearchPriority.INTERACTIVE, task);
+    private final Executor backgroundLane = task -> submit(SearchPriority.BACKGROUND, task);
+
+    // Guarded by this
+    private int running;
+    private int backgroundRunning;
+    private int turn;
+
+    public SupplierLaneScheduler(Executor delegate, int capacity, int reservedForInteractive,
+                                 int interactiveWeight, int backgroundWeight, LongConsumer interactiveQueueWait) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.maxBackground = Math.max(0, capacity - reservedForInteractive);
+        this.interactiveWeight = interactiveWeight;
+        this.backgroundWeight = backgroundWeight;
+        this.interactiveQueueWait = interactiveQueueWait;
+    }
+
+    public Executor lane(SearchPriority priority) {
+        return priority == SearchPriority.BACKGROUND ? backgroundLane : interactiveLane;
+    }
+
+    synchronized int queued(SearchPriority priority) {
+        return priority == SearchPriority.BACKGROUND ? background.size() : interactive.size();
+    }
+
+    private void submit(SearchPriority priority, Runnable task) {
+        synchronized (this) {
+            (priority == SearchPriority.BACKGROUND ? background : interactive)
+                    .add(new Queued(task, priority, System.nanoTime()));
+        }
+        dispatch();
+    }
+
+    // Tasks are handed to the executor outside the lock, since it may run them on the calling thread
+    private void dispatch() {
+        List<Queued> ready = new ArrayList<>();
+        synchronized (this) {
+            Queued next;
+            while ((next = pollNext()) != null) {
+                running++;
+                if (next.priority == SearchPriority.BACKGROUND) {
+                    backgroundRunning++;
+                }
+                ready.add(next);
+            }
+        }
+        for (Queued queued : ready) {
+            delegate.execute(() -> run(queued));
+        }
+    }
+
+    private void run(Queued queued) {
+        if (queued.priority == SearchPriority.INTERACTIVE) {
+            interactiveQueueWait.accept(System.nanoTime() - queued.submitted);
+        }
+        try {
+            queued.task.run();
+        } finally {
+            synchronized (this) {
+                running--;
+                if (queued.priority == SearchPriority.BACKGROUND) {
+                    backgroundRunning--;
+                }
+            }
+            dispatch();
+        }
+    }
+
+    private Queued pollNext() {
+        if (running >= capacity) {
+            return null;
+        }
+        boolean backgroundEligible = !background.isEmpty() && backgroundRunning < maxBackground;
+        if (!backgroundEligible) {
+            return interactive.poll();
+        }
+        if (interactive.isEmpty()) {
+            return background.poll();
+        }
+        // Both lanes waiting: backgroundWeight picks out of every interactiveWeight + backgroundWeight
+        turn = (turn + 1) % (interactiveWeight + backgroundWeight);
+        return turn < backgroundWeight ? background.poll() : interactive.poll();
+    }
+
+    private record Queued(Runnable task, SearchPriority priority, long submitted) {
+    }
+}
@@ -0,0 +1,111 @@
+package org.deblock.exercise.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.exception.SupplierClientErrorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per supplier and request, searches that came back empty or were rejected with a
+ * deterministic 4xx, so repeats within a short TTL do not spend supplier quota. Kept apart from the
+ * positive {@code SearchResultCache} so a burst of bad queries cannot evict real results.
+ */
+@Component
+public class SupplierNegativeCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flights.negative-cache.ttl:60s}")
+    Duration ttl;
+
+    @Value("${flights.negative-cache.max-entries:50000}")
+    int maxEntries;
+
+    public SupplierNegativeCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("flights.supplier.negative.cache.size", Tags.empty(), entries);
+    }
+
+    /**
+     * Returns an empty list for a cached empty result, throws the cached exception for a cached
+     * client error, or returns null when nothing is cached.
+     */
+    public List<FlightResponse> lookup(String supplier, SearchRequest request) {
+        Key key = new Key(supplier, request);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        counter(supplier, entry.failure() == null ? "empty" : "client-error", "hit").increment();
+        if (entry.failure() != null) {
+            throw entry.failure();
+        }
+        return List.of();
+    }
+
+    public void recordEmpty(String supplier, SearchRequest request) {
+        store(supplier, request, null, "empty");
+    }
+
+    public void recordFailure(String supplier, SearchRequest request, Throwable failure) {
+        SupplierClientErrorException clientError = findClientError(failure);
+        if (clientError != null && isDeterministic(clientError.getStatusCode())) {
+            store(supplier, request, clientError, "client-error");
+        }
+    }
+
+    private void store(String supplier, SearchRequest request, SupplierClientErrorException failure, String kind) {
+        if (ttl.isZero() || ttl.isNegative() || maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(new Key(supplier, request), new Entry(failure, System.nanoTime() + ttl.toNanos()));
+        counter(supplier, kind, "store").increment();
+    }
+
+    private Counter counter(String supplier, String kind, String outcome) {
+        return meterRegistry.counter("flights.supplier.negative.cache",
+                "supplier", supplier, "kind", kind, "outcome", outcome);
+    }
+
+    // Timeouts and throttling say nothing about the query itself
+    private static boolean isDeterministic(int statusCode) {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+    }
+
+    private static SupplierClientErrorException findClientError(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SupplierClientErrorException clientError) {
+                return clientError;
+            }
+        }
+        return null;
+    }
+
+    private record Key(String supplier, SearchRequest request) {
+    }
+
+    private record Entry(SupplierClientErrorException failure, long expiresAt) {
+    }
+}
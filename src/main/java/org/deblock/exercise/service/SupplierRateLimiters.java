@@ -0,0 +1,67 @@
+package org.deblock.exercise.service;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-supplier token buckets configured under the supplier's property prefix, e.g.
+ * {@code crazyair.rate-limit.permits-per-second}. Suppliers without a configured rate are not limited.
+ */
+@Component
+public class SupplierRateLimiters {
+
+    private final Environment environment;
+
+    private final Map<String, Optional<Limit>> limits = new ConcurrentHashMap<>();
+
+    public SupplierRateLimiters(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Takes a permit for {@code supplierName}, waiting at most the supplier's configured
+     * {@code max-wait}. Returns false when the call should be skipped.
+     */
+    public boolean acquire(String supplierName) {
+        Optional<Limit> limit = limits.computeIfAbsent(supplierName, this::load);
+        if (limit.isEmpty()) {
+            return true;
+        }
+        long waitNanos = limit.get().bucket().reserve(limit.get().maxWaitNanos());
+        if (waitNanos < 0) {
+            return false;
+        }
+        // The permit is ours from the end of the wait, and parkNanos may return early, so park until then
+        long deadline = System.nanoTime() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                // Give up on the call rather than spin; the reserved permit goes unused
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Optional<Limit> load(String supplierName) {
+        String prefix = supplierName.toLowerCase(Locale.ROOT) + ".rate-limit.";
+        Double permitsPerSecond = environment.getProperty(prefix + "permits-per-second", Double.class);
+        if (permitsPerSecond == null || permitsPerSecond <= 0) {
+            return Optional.empty();
+        }
+        double burst = environment.getProperty(prefix + "burst", Double.class, permitsPerSecond);
+        Duration maxWait = DurationStyle.detectAndParse(environment.getProperty(prefix + "max-wait", "0ms"));
+        return Optional.of(new Limit(new TokenBucket(permitsPerSecond, burst), maxWait.toNanos()));
+    }
+
+    private record Limit(TokenBucket bucket, long maxWaitNanos) {
+    }
+}
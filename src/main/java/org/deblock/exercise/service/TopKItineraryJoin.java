@@ -0,0 +1,84 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.Itinerary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Cheapest combinations of one flight per leg, without materializing the cross product. Each leg is
+ * fare-sorted, so combinations are popped from a min-heap in total-fare order. A combination's children
+ * raise the index of its last advanced leg or a later one, which reaches every combination exactly once
+ * and never before its parent. Combinations whose legs don't connect in time are skipped but still
+ * expanded. {@code maxExpansions} bounds the work when few combinations are feasible.
+ */
+class TopKItineraryJoin {
+
+    private TopKItineraryJoin() {
+    }
+
+    static List<Itinerary> cheapest(List<List<FlightResponse>> legs, int limit, Duration minConnection, int maxExpansions) {
+        List<Itinerary> itineraries = new ArrayList<>(limit);
+        if (legs.stream().anyMatch(List::isEmpty)) {
+            return itineraries;
+        }
+
+        PriorityQueue<Combination> heap = new PriorityQueue<>();
+        heap.add(new Combination(new int[legs.size()], 0, fare(legs, new int[legs.size()])));
+        int expansions = 0;
+        while (!heap.isEmpty() && itineraries.size() < limit && expansions++ < maxExpansions) {
+            Combination next = heap.poll();
+            if (connects(legs, next.indexes, minConnection)) {
+                itineraries.add(itinerary(legs, next));
+            }
+            for (int leg = next.lastAdvanced; leg < legs.size(); leg++) {
+                if (next.indexes[leg] + 1 < legs.get(leg).size()) {
+                    int[] indexes = Arrays.copyOf(next.indexes, next.indexes.length);
+                    indexes[leg]++;
+                    double total = next.total - legs.get(leg).get(indexes[leg] - 1).fare() + legs.get(leg).get(indexes[leg]).fare();
+                    heap.add(new Combination(indexes, leg, total));
+                }
+            }
+        }
+        return itineraries;
+    }
+
+    private static boolean connects(List<List<FlightResponse>> legs, int[] indexes, Duration minConnection) {
+        for (int leg = 1; leg < indexes.length; leg++) {
+            FlightResponse previous = legs.get(leg - 1).get(indexes[leg - 1]);
+            FlightResponse current = legs.get(leg).get(indexes[leg]);
+            if (current.departureDate().isBefore(previous.arrivalDate().plus(minConnection))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double fare(List<List<FlightResponse>> legs, int[] indexes) {
+        double total = 0;
+        for (int leg = 0; leg < indexes.length; leg++) {
+            total += legs.get(leg).get(indexes[leg]).fare();
+        }
+        return total;
+    }
+
+    private static Itinerary itinerary(List<List<FlightResponse>> legs, Combination combination) {
+        List<FlightResponse> flights = new ArrayList<>(legs.size());
+        for (int leg = 0; leg < legs.size(); leg++) {
+            flights.add(legs.get(leg).get(combination.indexes[leg]));
+        }
+        // Recomputed from the flights so incremental floating-point error doesn't reach the response
+        return new Itinerary(Math.round(fare(legs, combination.indexes) * 100.0) / 100.0, flights);
+    }
+
+    private record Combination(int[] indexes, int lastAdvanced, double total) implements Comparable<Combination> {
+        @Override
+        public int compareTo(Combination other) {
+            return Double.compare(total, other.total);
+        }
+    }
+}
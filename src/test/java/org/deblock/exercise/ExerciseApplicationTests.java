@@ -3,6 +3,7 @@ package org.deblock.exercise;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
 import org.deblock.exercise.domain.FlightResponse;
 import org.junit.jupiter.api.*;
@@ -12,6 +13,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,7 +28,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 @TestPropertySource(properties = {
 		"crazyair.api.url=http://localhost:8001/flights",
-		"toughjet.api.url=http://localhost:8002/flights"
+		"toughjet.api.url=http://localhost:8002/flights",
+		"flights.cache.ttl=0s",
+		"flights.negative-cache.ttl=0s",
+		"flights.warm-up.enabled=false"
 })
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class ExerciseApplicationTests {
@@ -62,7 +68,7 @@ class ExerciseApplicationTests {
 		// given
 		LocalDate departureDate = LocalDate.of(2025, 7, 20);
 		LocalDate returnDate = LocalDate.of(2025, 7, 25);
-		SearchRequest request = new SearchRequest("LHR", "AMS", departureDate, returnDate, 1);
+		SearchRequest request = new SearchRequest("LHR", "AMS", departureDate, returnDate, 1, SearchFilters.NONE);
 
 		// stub CrazyAir API
 		crazyAirMockServer.stubFor(get(urlPathEqualTo("/flights"))
@@ -118,13 +124,17 @@ class ExerciseApplicationTests {
 			""")));
 
 		// when requested
-		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
+		MvcResult mvcResult = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
 						.param("origin", request.origin())
 						.param("destination", request.destination())
 						.param("departureDate", request.departureDate().toString())
 						.param("returnDate", request.returnDate().toString())
 						.param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
 						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+
+		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch(mvcResult))
 				.andExpect(status().isOk())
 				.andReturn()
 				.getResponse()
@@ -141,7 +151,7 @@ class ExerciseApplicationTests {
 
 	@Test
 	void shouldReturnEmptyListWhenNoFlightsFromSuppliers() throws Exception {
-		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1);
+		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1, SearchFilters.NONE);
 
 		crazyAirMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(okJson("[]")));
@@ -149,13 +159,17 @@ class ExerciseApplicationTests {
 		toughJetMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(okJson("[]")));
 
-		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
+		MvcResult mvcResult = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
 						.param("origin", request.origin())
 						.param("destination", request.destination())
 						.param("departureDate", request.departureDate().toString())
 						.param("returnDate", request.returnDate().toString())
 						.param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
 						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+
+		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch(mvcResult))
 				.andExpect(status().isOk())
 				.andReturn()
 				.getResponse()
@@ -167,7 +181,7 @@ class ExerciseApplicationTests {
 
 	@Test
 	void shouldReturnFlightsWhenOnlyCrazyAirResponds() throws Exception {
-		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1);
+		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1, SearchFilters.NONE);
 
 		crazyAirMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(okJson("""
@@ -187,13 +201,17 @@ class ExerciseApplicationTests {
 		toughJetMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(okJson("[]")));
 
-		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
+		MvcResult mvcResult = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
 						.param("origin", request.origin())
 						.param("destination", request.destination())
 						.param("departureDate", request.departureDate().toString())
 						.param("returnDate", request.returnDate().toString())
 						.param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
 						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+
+		String responseJson = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch(mvcResult))
 				.andExpect(status().isOk())
 				.andReturn()
 				.getResponse()
@@ -211,7 +229,7 @@ class ExerciseApplicationTests {
 
 	@Test
 	void shouldReturnExceptionWhenBothSupplierFails() throws Exception {
-		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1);
+		SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1, SearchFilters.NONE);
 
 		crazyAirMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(serverError()));
@@ -219,13 +237,17 @@ class ExerciseApplicationTests {
 		toughJetMockServer.stubFor(get(urlPathEqualTo("/flights"))
 				.willReturn(serverError()));
 
-		mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
+		MvcResult mvcResult = mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/flights")
 						.param("origin", request.origin())
 						.param("destination", request.destination())
 						.param("departureDate", request.departureDate().toString())
 						.param("returnDate", request.returnDate().toString())
 						.param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
 						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch(mvcResult))
 				.andExpect(status().is5xxServerError());
 	}
 
@@ -0,0 +1,75 @@
+package org.deblock.exercise.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveTimeoutTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AdaptiveTimeout timeout = new AdaptiveTimeout(0.99, 2.0, Duration.ofMillis(100),
+            Duration.ofSeconds(5), 10, Duration.ofSeconds(60), clock::get);
+
+    @Test
+    void shouldUseCeilingUntilEnoughSamples() {
+        // act
+        record(9, 50);
+
+        // assert
+        assertEquals(Duration.ofSeconds(5), timeout.current());
+    }
+
+    @Test
+    void shouldFollowPercentileTimesFactor() {
+        // arrange
+        record(99, 200);
+        record(1, 1000);
+
+        // act
+        Duration current = timeout.current();
+
+        // assert: p99 is 200ms (within one bucket), doubled
+        assertTrue(current.compareTo(Duration.ofMillis(400)) >= 0, current::toString);
+        assertTrue(current.compareTo(Duration.ofMillis(450)) <= 0, current::toString);
+    }
+
+    @Test
+    void shouldClampToFloorAndCeiling() {
+        // arrange
+        AdaptiveTimeout fast = new AdaptiveTimeout(0.99, 2.0, Duration.ofMillis(100),
+                Duration.ofSeconds(5), 10, Duration.ofSeconds(60), clock::get);
+        record(100, 10_000);
+        for (int i = 0; i < 100; i++) {
+            fast.record(Duration.ofMillis(5).toNanos());
+        }
+
+        // act and assert
+        assertEquals(Duration.ofSeconds(5), timeout.current());
+        assertEquals(Duration.ofMillis(100), fast.current());
+    }
+
+    @Test
+    void shouldForgetSamplesOutsideTheWindow() {
+        // arrange
+        record(100, 2000);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        record(100, 200);
+        assertTrue(timeout.current().compareTo(Duration.ofSeconds(4)) >= 0, timeout.current()::toString);
+
+        // act
+        clock.addAndGet(Duration.ofSeconds(45).toNanos());
+
+        // assert
+        assertTrue(timeout.current().compareTo(Duration.ofMillis(450)) <= 0, timeout.current()::toString);
+    }
+
+    private void record(int count, long millis) {
+        for (int i = 0; i < count; i++) {
+            timeout.record(Duration.ofMillis(millis).toNanos());
+        }
+    }
+}
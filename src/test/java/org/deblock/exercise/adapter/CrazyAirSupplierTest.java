@@ -1,66 +1,82 @@
 package org.deblock.exercise.adapter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.deblock.exercise.adapter.dto.CrazyAirResponse;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
 import org.deblock.exercise.domain.FlightResponse;
 import org.deblock.exercise.exception.FlightSupplierException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
 
 class CrazyAirSupplierTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private static final WireMockServer server = new WireMockServer(options().dynamicPort());
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 
-    @InjectMocks
     private CrazyAirSupplier crazyAirSupplier;
 
-    private String url = "http://mock-crazyair.com/flights?origin=LHR&destination=AMS&departureDate=2025-07-01&returnDate=2025-07-10&passengerCount=2";
+    private String url = "/flights?origin=LHR&destination=AMS&departureDate=2025-07-01&returnDate=2025-07-10&passengerCount=2";
     private SearchRequest searchRequest;
 
+    @BeforeAll
+    static void startServer() {
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
     // arrange
     @BeforeEach
     void setup() {
-        MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(crazyAirSupplier, "apiUrl", "http://mock-crazyair.com/flights");
+        server.resetAll();
+        SupplierHttpClient supplierHttpClient = new SupplierHttpClient(objectMapper, new SimpleMeterRegistry(), new MockEnvironment());
+        crazyAirSupplier = new CrazyAirSupplier();
+        ReflectionTestUtils.setField(crazyAirSupplier, "supplierHttpClient", supplierHttpClient);
+        ReflectionTestUtils.setField(crazyAirSupplier, "apiUrl", server.baseUrl() + "/flights");
+        crazyAirSupplier.buildQuery();
         searchRequest = new SearchRequest("LHR", "AMS",
-                LocalDate.parse("2025-07-01"), LocalDate.parse("2025-07-10"), 2);
+                LocalDate.parse("2025-07-01"), LocalDate.parse("2025-07-10"), 2, SearchFilters.NONE);
+    }
+
+    private void stubResponse(Object body) throws JsonProcessingException {
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(body))));
     }
 
     @Test
-    void testSearch_singleFlightReturned() {
+    void testSearch_singleFlightReturned() throws Exception {
         // arrange
         CrazyAirResponse singleResponse = new CrazyAirResponse(
                 "CrazyAir1", 100.0, "E", "LHR", "AMS",
                 LocalDateTime.of(2025, 7, 1, 10, 0),
                 LocalDateTime.of(2025, 7, 1, 12, 0)
         );
-        ResponseEntity<List<CrazyAirResponse>> responseEntity =
-                ResponseEntity.ok(List.of(singleResponse));
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(responseEntity);
+        stubResponse(List.of(singleResponse));
 
         FlightResponse expectedFlightResponse = new FlightResponse(
                 "CrazyAir1",
@@ -82,7 +98,43 @@ class CrazyAirSupplierTest {
     }
 
     @Test
-    void testSearch_multipleFlightsReturned() {
+    void shouldApplyFiltersWhileMapping() throws Exception {
+        // arrange
+        CrazyAirResponse cheapMorning = new CrazyAirResponse(
+                "CrazyAir1", 100.0, "E", "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 8, 0),
+                LocalDateTime.of(2025, 7, 1, 10, 0)
+        );
+        CrazyAirResponse expensive = new CrazyAirResponse(
+                "CrazyAir1", 400.0, "B", "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 9, 0),
+                LocalDateTime.of(2025, 7, 1, 11, 0)
+        );
+        CrazyAirResponse excludedAirline = new CrazyAirResponse(
+                "CrazyAir2", 90.0, "E", "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 8, 30),
+                LocalDateTime.of(2025, 7, 1, 10, 30)
+        );
+        CrazyAirResponse evening = new CrazyAirResponse(
+                "CrazyAir1", 120.0, "E", "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 19, 0),
+                LocalDateTime.of(2025, 7, 1, 21, 0)
+        );
+        stubResponse(List.of(cheapMorning, expensive, excludedAirline, evening));
+
+        SearchRequest filtered = searchRequest.withFilters(new SearchFilters(
+                300.0, null, List.of("crazyair2"), LocalTime.of(6, 0), LocalTime.of(12, 0), null, null));
+
+        // act
+        List<FlightResponse> results = crazyAirSupplier.search(filtered).join();
+
+        // assert
+        assertEquals(1, results.size());
+        assertEquals(100.0, results.get(0).fare());
+    }
+
+    @Test
+    void testSearch_multipleFlightsReturned() throws Exception {
         // arrange
         CrazyAirResponse response1 = new CrazyAirResponse(
                 "CrazyAir1", 100.0, "E", "LHR", "AMS",
@@ -95,15 +147,7 @@ class CrazyAirSupplierTest {
                 LocalDateTime.of(2025, 7, 1, 16, 0)
         );
 
-        ResponseEntity<List<CrazyAirResponse>> responseEntity =
-                ResponseEntity.ok(List.of(response1, response2));
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(responseEntity);
+        stubResponse(List.of(response1, response2));
 
         List<FlightResponse> expectedFlightResponses = List.of(
                 new FlightResponse(
@@ -131,15 +175,7 @@ class CrazyAirSupplierTest {
     @Test
     void testSearch_noFlightsReturned() throws Exception {
         // arrange
-        ResponseEntity<List<CrazyAirResponse>> responseEntity =
-                ResponseEntity.ok(List.of());
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(responseEntity);
+        stubResponse(List.of());
 
         // act
         CompletableFuture<List<FlightResponse>> future = crazyAirSupplier.search(searchRequest);
@@ -153,15 +189,7 @@ class CrazyAirSupplierTest {
     @Test
     void testSearch_ThrowsExceptionForBadHttpStatus() {
         // arrange
-        ResponseEntity<List<CrazyAirResponse>> responseEntity =
-                new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(responseEntity);
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse().withStatus(500)));
 
         // act and assert
         FlightSupplierException ex = assertThrows(FlightSupplierException.class,
@@ -172,12 +200,7 @@ class CrazyAirSupplierTest {
     @Test
     void testSearch_ThrowsExceptionForRestClientException() {
         // arrange
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)
-        )).thenThrow(new RestClientException("Connection refused"));
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
         // act and assert
         FlightSupplierException ex = assertThrows(FlightSupplierException.class,
                 () -> crazyAirSupplier.search(searchRequest).join());
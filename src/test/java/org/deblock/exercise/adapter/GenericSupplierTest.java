@@ -0,0 +1,171 @@
+package org.deblock.exercise.adapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenericSupplierTest {
+
+    private static final WireMockServer server = new WireMockServer(options().dynamicPort());
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MockEnvironment environment;
+    private SearchRequest searchRequest;
+
+    @BeforeAll
+    static void startServer() {
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    // arrange
+    @BeforeEach
+    void setup() {
+        server.resetAll();
+        environment = new MockEnvironment()
+                .withProperty("skyhop.api.url", server.baseUrl() + "/search")
+                .withProperty("skyhop.mapping.query.origin", "from")
+                .withProperty("skyhop.mapping.query.destination", "to")
+                .withProperty("skyhop.mapping.query.departure-date", "out")
+                .withProperty("skyhop.mapping.query.return-date", "back")
+                .withProperty("skyhop.mapping.query.passengers", "adults")
+                .withProperty("skyhop.mapping.airline", "carrier.name")
+                .withProperty("skyhop.mapping.departure-airport", "route.from")
+                .withProperty("skyhop.mapping.arrival-airport", "route.to")
+                .withProperty("skyhop.mapping.departure-date", "times.departure")
+                .withProperty("skyhop.mapping.arrival-date", "times.arrival")
+                .withProperty("skyhop.mapping.fare", "(price.base + price.tax) * (1 - price.discount / 100)")
+                .withProperty("skyhop.mapping.fare-scale", "2");
+        searchRequest = new SearchRequest("LHR", "AMS", LocalDate.parse("2025-07-20"), LocalDate.parse("2025-07-25"), 2, SearchFilters.NONE);
+    }
+
+    @Test
+    void shouldMapConfiguredFieldsAndFareFormula() {
+        // arrange
+        server.stubFor(get(urlEqualTo("/search?from=LHR&to=AMS&out=2025-07-20&back=2025-07-25&adults=2"))
+                .willReturn(okJson("""
+                        [{"id": 1, "carrier": {"name": "SkyHop", "alliance": {"name": "none"}},
+                          "route": {"from": "LHR", "to": "AMS", "stops": []},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 10.0, "currency": "GBP"},
+                          "times": {"departure": "2025-07-20T10:00:00+01:00", "arrival": "2025-07-20T12:00:00Z"}},
+                         {"carrier": {"name": "SkyHop"}, "route": {"from": "LHR", "to": "AMS"},
+                          "price": {"base": null, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "2025-07-20T10:00:00", "arrival": "2025-07-20T12:00:00"}}]
+                        """)));
+
+        // act
+        List<FlightResponse> results = supplier().search(searchRequest).join();
+
+        // assert: the second flight has no base price, so it is dropped
+        assertEquals(List.of(new FlightResponse("SkyHop", "SkyHop", 108.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 9, 0), LocalDateTime.of(2025, 7, 20, 12, 0))), results);
+    }
+
+    @Test
+    void shouldDropFlightsWithMissingAirlineOrAirport() {
+        // arrange
+        server.stubFor(get(urlEqualTo("/search?from=LHR&to=AMS&out=2025-07-20&back=2025-07-25&adults=2"))
+                .willReturn(okJson("""
+                        [{"carrier": {"name": null}, "route": {"from": "LHR", "to": "AMS"},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "2025-07-20T10:00:00", "arrival": "2025-07-20T12:00:00"}},
+                         {"carrier": {"name": "SkyHop"}, "route": {"to": "AMS"},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "2025-07-20T10:00:00", "arrival": "2025-07-20T12:00:00"}},
+                         {"carrier": {"name": "SkyHop"}, "route": {"from": "LHR"},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "2025-07-20T10:00:00", "arrival": "2025-07-20T12:00:00"}}]
+                        """)));
+
+        // act
+        List<FlightResponse> results = supplier().search(searchRequest).join();
+
+        // assert
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void shouldDropFlightsWithUnparseableDateOrNonFiniteFare() throws Exception {
+        // arrange
+        server.stubFor(get(urlEqualTo("/search?from=LHR&to=AMS&out=2025-07-20&back=2025-07-25&adults=2"))
+                .willReturn(okJson("""
+                        [{"carrier": {"name": "SkyHop"}, "route": {"from": "LHR", "to": "AMS"},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "20/07/2025 10:00", "arrival": "2025-07-20T12:00:00"}},
+                         {"carrier": {"name": "SkyHop"}, "route": {"from": "LHR", "to": "AMS"},
+                          "price": {"base": 1e308, "tax": 1e308, "discount": 0},
+                          "times": {"departure": "2025-07-20T09:00:00", "arrival": "2025-07-20T11:00:00"}},
+                         {"carrier": {"name": "SkyHop"}, "route": {"from": "LHR", "to": "AMS"},
+                          "price": {"base": 100.0, "tax": 20.0, "discount": 0},
+                          "times": {"departure": "2025-07-20T14:00:00", "arrival": "2025-07-20T16:00:00"}}]
+                        """)));
+
+        // act
+        List<FlightResponse> results = supplier().search(searchRequest).join();
+
+        // assert
+        assertEquals(1, results.size());
+        assertEquals(LocalDateTime.of(2025, 7, 20, 14, 0), results.get(0).departureDate());
+    }
+
+    @Test
+    void shouldFailFastOnInvalidMapping() {
+        // arrange
+        environment.setProperty("skyhop.mapping.fare", "price.base * (1 + price.tax");
+
+        // act and assert
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, this::supplier);
+        assertTrue(ex.getMessage().contains("missing ')'"), ex::getMessage);
+    }
+
+    @Test
+    void shouldReadSampleThroughConfiguredMapping() throws Exception {
+        // act
+        List<FlightResponse> results = supplier().readSample(10);
+
+        // assert
+        assertEquals(10, results.size());
+        results.forEach(flight -> {
+            assertEquals("SkyHop", flight.supplier());
+            assertEquals("LHR", flight.departureAirportCode());
+            assertEquals("AMS", flight.destinationAirportCode());
+            assertTrue(flight.arrivalDate().isAfter(flight.departureDate()));
+        });
+    }
+
+    @Test
+    void shouldEvaluateFormulaPrecedence() {
+        // arrange
+        FareFormula formula = FareFormula.compile("-a + b * (c - 1) / 2", path -> "abc".indexOf(path));
+
+        // act and assert
+        assertEquals(-1 + 3 * (5 - 1) / 2.0, formula.evaluate(new double[]{1, 3, 5}));
+    }
+
+    private GenericSupplier supplier() {
+        SupplierHttpClient supplierHttpClient = new SupplierHttpClient(objectMapper, new SimpleMeterRegistry(), environment);
+        return new GenericSupplier("SkyHop", environment, supplierHttpClient);
+    }
+}
@@ -0,0 +1,302 @@
+package org.deblock.exercise.adapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.deblock.exercise.adapter.dto.CrazyAirResponse;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.diagnostics.SupplierCallEvent;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.exception.SupplierClientErrorException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupplierHttpClientTest {
+
+    private static final WireMockServer server = new WireMockServer(options().dynamicPort());
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private SimpleMeterRegistry meterRegistry;
+    private MockEnvironment environment;
+    private SupplierHttpClient supplierHttpClient;
+
+    @BeforeAll
+    static void startServer() {
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    void setup() {
+        server.resetAll();
+        meterRegistry = new SimpleMeterRegistry();
+        environment = new MockEnvironment();
+        supplierHttpClient = new SupplierHttpClient(objectMapper, meterRegistry, environment);
+    }
+
+    @Test
+    void shouldKeepCheapestFlightsWhenItemCapReached() throws Exception {
+        // arrange
+        environment.setProperty("crazyair.payload.max-items", "2");
+        stubFlights(List.of(flight(300.0), flight(120.0), flight(250.0), flight(90.0), flight(400.0)));
+
+        // act
+        List<FlightResponse> results = fetch();
+
+        // assert
+        assertEquals(List.of(90.0, 120.0), results.stream().map(FlightResponse::fare).toList());
+        assertEquals(1.0, meterRegistry.counter("flights.supplier.truncated",
+                "supplier", "CrazyAir", "reason", "items").count());
+    }
+
+    @Test
+    void shouldStopReadingWhenByteCapReached() throws Exception {
+        // arrange
+        List<CrazyAirResponse> flights = IntStream.range(0, 200).mapToObj(i -> flight(100.0 + i)).toList();
+        int flightSize = objectMapper.writeValueAsBytes(flights.get(0)).length;
+        environment.setProperty("crazyair.payload.max-bytes", (flightSize * 3) + "B");
+        stubFlights(flights);
+
+        // act
+        List<FlightResponse> results = fetch();
+
+        // assert
+        assertFalse(results.isEmpty());
+        assertTrue(results.size() < 3);
+        assertEquals(1.0, meterRegistry.counter("flights.supplier.truncated",
+                "supplier", "CrazyAir", "reason", "bytes").count());
+    }
+
+    @Test
+    void shouldReturnAllFlightsUnderCaps() throws Exception {
+        // arrange
+        environment.setProperty("crazyair.payload.max-items", "10");
+        environment.setProperty("crazyair.payload.max-bytes", "1MB");
+        stubFlights(List.of(flight(300.0), flight(120.0)));
+
+        // act
+        List<FlightResponse> results = fetch();
+
+        // assert
+        assertEquals(List.of(300.0, 120.0), results.stream().map(FlightResponse::fare).toList());
+        assertTrue(meterRegistry.find("flights.supplier.truncated").counters().isEmpty());
+    }
+
+    @Test
+    void shouldRaiseSupplierClientErrorExceptionOnClientErrorStatus() {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse().withStatus(400)));
+
+        // act and assert
+        SupplierClientErrorException ex = assertThrows(SupplierClientErrorException.class, this::fetch);
+        assertEquals(400, ex.getStatusCode());
+    }
+
+    @Test
+    void shouldReuseFlightsWhenSupplierAnswersNotModified() throws Exception {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withHeader("ETag", "\"v1\"")
+                .withBody(objectMapper.writeValueAsString(List.of(flight(120.0), flight(90.0))))));
+        server.stubFor(get(urlPathEqualTo("/flights"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304)));
+        List<FlightResponse> first = fetch();
+
+        // act
+        List<FlightResponse> second = fetch();
+
+        // assert
+        assertEquals(first, second);
+        assertEquals(1.0, meterRegistry.counter("flights.supplier.not-modified", "supplier", "CrazyAir").count());
+        server.verify(1, getRequestedFor(urlPathEqualTo("/flights")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void shouldRecordSupplierCallEvent() throws Exception {
+        // arrange
+        stubFlights(List.of(flight(120.0), flight(90.0)));
+        Path file = Files.createTempFile("supplier-call", ".jfr");
+
+        // act
+        try (Recording recording = new Recording()) {
+            recording.enable(SupplierCallEvent.class);
+            recording.start();
+            fetch();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // assert
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("CrazyAir", event.getString("supplier"));
+        assertEquals(200, event.getInt("status"));
+        assertEquals("ok", event.getString("outcome"));
+        assertEquals(2, event.getInt("flights"));
+        assertTrue(event.getLong("bytes") > 0);
+    }
+
+    @Test
+    void shouldTimeOutSlowSupplierAndPublishTimeout() throws Exception {
+        // arrange
+        environment.setProperty("flights.supplier-timeout.ceiling", "200ms");
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withFixedDelay(1000)
+                .withHeader("Content-Type", "application/json")
+                .withBody("[]")));
+
+        // act and assert
+        assertThrows(HttpTimeoutException.class, this::fetch);
+        assertEquals(200.0, meterRegistry.get("flights.supplier.timeout").tag("supplier", "CrazyAir").gauge().value());
+    }
+
+    @Test
+    void shouldTimeOutSupplierThatDribblesItsBody() throws Exception {
+        // arrange
+        environment.setProperty("flights.supplier-timeout.ceiling", "300ms");
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(IntStream.range(0, 20).mapToObj(i -> flight(100.0 + i)).toList()))
+                .withChunkedDribbleDelay(20, 3000)));
+
+        // act and assert
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThrows(HttpTimeoutException.class, this::fetch));
+    }
+
+    @Test
+    void shouldSampleLatencyAfterBodyIsRead() throws Exception {
+        // arrange
+        environment.setProperty("flights.supplier-timeout.min-samples", "1");
+        environment.setProperty("flights.supplier-timeout.factor", "1");
+        environment.setProperty("flights.supplier-timeout.floor", "1ms");
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(IntStream.range(0, 20).mapToObj(i -> flight(100.0 + i)).toList()))
+                .withChunkedDribbleDelay(10, 400)));
+
+        // act
+        List<FlightResponse> results = fetch();
+
+        // assert
+        assertEquals(20, results.size());
+        assertTrue(meterRegistry.get("flights.supplier.timeout").tag("supplier", "CrazyAir").gauge().value() >= 300.0);
+    }
+
+    @Test
+    void shouldLoosenTimeoutWhenShareOfCallsTurnsSlow() throws Exception {
+        // arrange
+        environment.setProperty("flights.supplier-timeout.percentile", "0.9");
+        environment.setProperty("flights.supplier-timeout.factor", "2");
+        environment.setProperty("flights.supplier-timeout.floor", "50ms");
+        environment.setProperty("flights.supplier-timeout.ceiling", "2s");
+        environment.setProperty("flights.supplier-timeout.min-samples", "5");
+        stubFlights(List.of(flight(120.0)));
+        for (int i = 0; i < 10; i++) {
+            fetch();
+        }
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withFixedDelay(300)
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(List.of(flight(120.0))))));
+
+        // act
+        int answered = 0;
+        for (int i = 0; i < 6; i++) {
+            try {
+                fetch();
+                answered++;
+            } catch (HttpTimeoutException e) {
+                // expected until the timeout has caught up
+            }
+        }
+
+        // assert: timed-out calls push the percentile up until the slow calls fit
+        assertTrue(answered > 0);
+        assertTrue(meterRegistry.get("flights.supplier.timeout").tag("supplier", "CrazyAir").gauge().value() > 300.0);
+    }
+
+    @Test
+    void shouldGiveUpPreconnectingToSupplierThatNeverAnswers() {
+        // arrange
+        environment.setProperty("flights.warm-up.timeout", "200ms");
+        server.stubFor(head(urlPathEqualTo("/flights")).willReturn(aResponse().withFixedDelay(10_000)));
+
+        // act and assert
+        assertTimeoutPreemptively(Duration.ofSeconds(3),
+                () -> supplierHttpClient.preconnect("CrazyAir", server.baseUrl() + "/flights"));
+    }
+
+    @Test
+    void shouldFallBackToHttp11WhenSupplierDoesNotSpeakHttp2() throws Exception {
+        // arrange
+        WireMockServer http11Only = new WireMockServer(options().dynamicPort().http2PlainDisabled(true));
+        http11Only.start();
+        try {
+            http11Only.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(objectMapper.writeValueAsString(List.of(flight(120.0), flight(90.0))))));
+
+            // act
+            List<FlightResponse> first = fetch(http11Only.baseUrl());
+            List<FlightResponse> second = fetch(http11Only.baseUrl());
+
+            // assert
+            assertEquals(2, first.size());
+            assertEquals(2, second.size());
+            // The client asked to upgrade to HTTP/2 and carried on over HTTP/1.1 when the server didn't
+            http11Only.verify(getRequestedFor(urlPathEqualTo("/flights")).withHeader("Upgrade", equalTo("h2c")));
+        } finally {
+            http11Only.stop();
+        }
+    }
+
+    private List<FlightResponse> fetch() throws IOException {
+        return fetch(server.baseUrl());
+    }
+
+    private List<FlightResponse> fetch(String baseUrl) throws IOException {
+        return supplierHttpClient.get("CrazyAir", baseUrl + "/flights", SearchFilters.NONE, CrazyAirResponse.class,
+                res -> new FlightResponse(res.airline(), "CrazyAir", res.price(), res.departureAirportCode(),
+                        res.destinationAirportCode(), res.departureDate(), res.arrivalDate()));
+    }
+
+    private void stubFlights(List<CrazyAirResponse> flights) throws Exception {
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(flights))));
+    }
+
+    private static CrazyAirResponse flight(double price) {
+        return new CrazyAirResponse("CrazyAir1", price, "E", "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 10, 0), LocalDateTime.of(2025, 7, 1, 12, 0));
+    }
+}
@@ -0,0 +1,243 @@
+package org.deblock.exercise.adapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.deblock.exercise.adapter.dto.CrazyAirResponse;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SupplierQueryTemplateTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    private final SupplierQueryTemplate template = new SupplierQueryTemplate("https://mock-toughjet.com/flights",
+            "from", "to", "outboundDate", "inboundDate", "numberOfAdults");
+
+    private final SearchRequest request = new SearchRequest("LHR", "AMS",
+            LocalDate.of(2025, 7, 5), LocalDate.of(2025, 12, 25), 2, SearchFilters.NONE);
+
+    private Object sink;
+
+    @Test
+    void shouldExpandLikeUriComponentsBuilder() {
+        // act and assert
+        assertEquals(builder(request), template.expand(request));
+        assertEquals("https://mock.com/flights?key=abc&from=L%20H&to=AMS&outboundDate=2025-07-05&inboundDate=2025-12-25&numberOfAdults=2",
+                new SupplierQueryTemplate("https://mock.com/flights?key=abc", "from", "to", "outboundDate", "inboundDate",
+                        "numberOfAdults").expand(new SearchRequest("L H", "AMS", request.departureDate(), request.returnDate(),
+                        2, SearchFilters.NONE)));
+    }
+
+    @Test
+    void shouldAllocateLittleMoreThanTheUrl() {
+        // arrange
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        // act
+        long template = allocatedPerCall(threads, this.template::expand);
+        long builder = allocatedPerCall(threads, SupplierQueryTemplateTest::builder);
+
+        // assert
+        assertTrue(template < 512, () -> "template allocated " + template + " bytes per call");
+        assertTrue(template * 4 < builder, () -> "template " + template + " vs builder " + builder + " bytes per call");
+    }
+
+    @Test
+    void shouldAllocateLittleOnWholeAdapterCallBesidesTheFlights() throws IOException {
+        // arrange
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        CrazyAirSupplier empty = stubbedCrazyAir("[]");
+        CrazyAirSupplier oneFlight = stubbedCrazyAir(Jackson2ObjectMapperBuilder.json().build().writeValueAsString(List.of(
+                new CrazyAirResponse("CrazyAir1", 100.0, "E", "LHR", "AMS",
+                        LocalDateTime.of(2025, 7, 5, 10, 0), LocalDateTime.of(2025, 7, 5, 12, 0)))));
+
+        // act
+        long emptyCall = allocatedPerCall(threads, search -> empty.search(search).join());
+        long oneFlightCall = allocatedPerCall(threads, search -> oneFlight.search(search).join());
+
+        // assert
+        // URL expansion, request building, the per-supplier lookups, the timeout timer, the JFR event and the parser
+        assertTrue(emptyCall < 4096, () -> "adapter call allocated " + emptyCall + " bytes with an empty body");
+        assertTrue(oneFlightCall - emptyCall < 2048, () -> "one flight added " + (oneFlightCall - emptyCall) + " bytes");
+    }
+
+    private long allocatedPerCall(com.sun.management.ThreadMXBean threads, Function<SearchRequest, ?> call) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = call.apply(request);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = call.apply(request);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertNotNull(sink);
+        return allocated / ITERATIONS;
+    }
+
+    // The real adapter and SupplierHttpClient, with the supplier's HttpClient answering every call with body
+    @SuppressWarnings("unchecked")
+    private static CrazyAirSupplier stubbedCrazyAir(String body) {
+        SupplierHttpClient supplierHttpClient = new SupplierHttpClient(Jackson2ObjectMapperBuilder.json().build(),
+                new SimpleMeterRegistry(), new MockEnvironment());
+        Map<String, HttpClient> clients = (Map<String, HttpClient>) ReflectionTestUtils.getField(supplierHttpClient, "clients");
+        clients.put("CrazyAir", new StubHttpClient(body.getBytes(StandardCharsets.UTF_8)));
+        CrazyAirSupplier supplier = new CrazyAirSupplier();
+        ReflectionTestUtils.setField(supplier, "supplierHttpClient", supplierHttpClient);
+        ReflectionTestUtils.setField(supplier, "apiUrl", "https://mock-crazyair.com/flights");
+        supplier.buildQuery();
+        return supplier;
+    }
+
+    private static String builder(SearchRequest request) {
+        return UriComponentsBuilder
+                .fromHttpUrl("https://mock-toughjet.com/flights")
+                .queryParam("from", request.origin())
+                .queryParam("to", request.destination())
+                .queryParam("outboundDate", request.departureDate())
+                .queryParam("inboundDate", request.returnDate())
+                .queryParam("numberOfAdults", request.numberOfPassengers())
+                .toUriString();
+    }
+
+    private static final class StubHttpClient extends HttpClient {
+        private final byte[] body;
+
+        StubHttpClient(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            return (HttpResponse<T>) new StubResponse(request, new ByteArrayInputStream(body));
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            return CompletableFuture.completedFuture(send(request, handler));
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            return sendAsync(request, handler);
+        }
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return Redirect.NEVER;
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return Optional.empty();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return null;
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return null;
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_2;
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return Optional.empty();
+        }
+    }
+
+    private record StubResponse(HttpRequest request, InputStream body) implements HttpResponse<InputStream> {
+
+        private static final HttpHeaders HEADERS = HttpHeaders.of(Map.of("Content-Type", List.of("application/json")),
+                (name, value) -> true);
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HEADERS;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_2;
+        }
+    }
+}
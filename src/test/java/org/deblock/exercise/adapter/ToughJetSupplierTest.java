@@ -1,53 +1,72 @@
 package org.deblock.exercise.adapter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.deblock.exercise.adapter.dto.ToughJetResponse;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
 import org.deblock.exercise.domain.FlightResponse;
 import org.deblock.exercise.exception.FlightSupplierException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
 
 class ToughJetSupplierTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private static final WireMockServer server = new WireMockServer(options().dynamicPort());
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 
-    @InjectMocks
     private ToughJetSupplier toughJetSupplier;
 
+    private String url = "/flights?from=LHR&to=AMS&outboundDate=2025-07-20&inboundDate=2025-07-25&numberOfAdults=2";
     private SearchRequest searchRequest;
 
-    private String url = "http://mock-toughjet.com/flights?from=LHR&to=AMS&outboundDate=2025-07-20&inboundDate=2025-07-25&numberOfAdults=2";
+    @BeforeAll
+    static void startServer() {
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
 
     // arrange
     @BeforeEach
     void setup() {
-        MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(toughJetSupplier, "apiUrl", "http://mock-toughjet.com/flights");
+        server.resetAll();
+        SupplierHttpClient supplierHttpClient = new SupplierHttpClient(objectMapper, new SimpleMeterRegistry(), new MockEnvironment());
+        toughJetSupplier = new ToughJetSupplier(supplierHttpClient);
+        ReflectionTestUtils.setField(toughJetSupplier, "apiUrl", server.baseUrl() + "/flights");
+        toughJetSupplier.buildQuery();
+        searchRequest = new SearchRequest("LHR", "AMS", LocalDate.parse("2025-07-20"), LocalDate.parse("2025-07-25"), 2, SearchFilters.NONE);
+    }
 
-        searchRequest = new SearchRequest("LHR", "AMS", LocalDate.parse("2025-07-20"), LocalDate.parse("2025-07-25"), 2);
+    private void stubResponse(Object body) throws JsonProcessingException {
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(objectMapper.writeValueAsString(body))));
     }
 
     @Test
-    void testSearch_singleFlightReturned() {
+    void testSearch_singleFlightReturned() throws Exception {
         // arrange
         ToughJetResponse toughJetResponse = new ToughJetResponse(
             "ToughJet",
@@ -62,15 +81,7 @@ class ToughJetSupplierTest {
 
         List<ToughJetResponse> clientResponses = List.of(toughJetResponse);
 
-        ResponseEntity<List<ToughJetResponse>> responseEntity =
-                new ResponseEntity<>(clientResponses, HttpStatus.OK);
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(responseEntity);
+        stubResponse(clientResponses);
 
         FlightResponse expectedFlightResponse = new FlightResponse(
                 "ToughJet",
@@ -92,7 +103,7 @@ class ToughJetSupplierTest {
     }
 
     @Test
-    void testSearch_multipleFlightsReturned() {
+    void testSearch_multipleFlightsReturned() throws Exception {
         // arrange
         ToughJetResponse response1 = new ToughJetResponse(
                 "Carrier1",
@@ -118,15 +129,7 @@ class ToughJetSupplierTest {
 
         List<ToughJetResponse> clientResponses = List.of(response1, response2);
 
-        ResponseEntity<List<ToughJetResponse>> responseEntity =
-                new ResponseEntity<>(clientResponses, HttpStatus.OK);
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(responseEntity);
+        stubResponse(clientResponses);
 
         List<FlightResponse>  expectedFlightResponses = List.of(
                 new FlightResponse(
@@ -160,17 +163,9 @@ class ToughJetSupplierTest {
     }
 
     @Test
-    void testSearch_noFlightsReturned() {
+    void testSearch_noFlightsReturned() throws Exception {
         // arrange
-        ResponseEntity<List<ToughJetResponse>> responseEntity =
-                new ResponseEntity<>(List.of(), HttpStatus.OK);
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(responseEntity);
+        stubResponse(List.of());
 
         // act
         List<FlightResponse> results = toughJetSupplier.search(searchRequest).join();
@@ -181,15 +176,7 @@ class ToughJetSupplierTest {
     @Test
     void testSearch_ThrowsExceptionForBadHttpStatus() {
         // arrange
-        ResponseEntity<List<ToughJetResponse>> responseEntity =
-                new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(responseEntity);
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse().withStatus(500)));
 
         // act and assert
         FlightSupplierException ex = assertThrows(FlightSupplierException.class, () ->
@@ -200,12 +187,7 @@ class ToughJetSupplierTest {
     @Test
     void testSearch_ThrowsExceptionForRestClientException() {
         // arrange
-        when(restTemplate.exchange(
-                eq(url),
-                any(),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenThrow(new RestClientException("Connection error"));
+        server.stubFor(get(urlEqualTo(url)).willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
 
         // act and assert
         FlightSupplierException ex = assertThrows(FlightSupplierException.class, () ->
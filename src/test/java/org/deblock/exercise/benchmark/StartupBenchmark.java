@@ -0,0 +1,112 @@
+package org.deblock.exercise.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Measures time from process start to the first successful {@code /flights} response, for the default
+ * mode and for fast-start mode with the AppCDS archive. Run through the {@code startupBenchmark} Gradle
+ * task, which passes the application classpath and archive location.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final String classpath = System.getProperty("benchmark.classpath");
+    private final String cdsArchive = System.getProperty("benchmark.cds-archive");
+    private final int runs = Integer.getInteger("benchmark.runs", 3);
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        WireMockServer supplier = new WireMockServer(options().dynamicPort());
+        supplier.start();
+        try {
+            supplier.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("[]")));
+
+            report("default", List.of(), List.of(), supplier);
+            report("fast-start + AppCDS", List.of("-XX:SharedArchiveFile=" + cdsArchive),
+                    List.of("--spring.profiles.active=fast-start"), supplier);
+        } finally {
+            supplier.stop();
+        }
+    }
+
+    private void report(String mode, List<String> jvmArgs, List<String> appArgs, WireMockServer supplier) throws Exception {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToFirstResponse(jvmArgs, appArgs, supplier);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-22s median %5d ms  (min %d, max %d, %d runs)%n",
+                mode, millis[runs / 2], millis[0], millis[runs - 1], runs);
+    }
+
+    private long timeToFirstResponse(List<String> jvmArgs, List<String> appArgs, WireMockServer supplier) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", classpath, "org.deblock.exercise.ExerciseApplication",
+                "--server.port=" + port,
+                "--crazyair.api.url=" + supplier.baseUrl() + "/flights",
+                "--toughjet.api.url=" + supplier.baseUrl() + "/flights"));
+        command.addAll(appArgs);
+
+        LocalDate departure = LocalDate.now().plusDays(30);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                + "/flights?origin=LHR&destination=AMS&numberOfPassengers=1"
+                + "&departureDate=" + departure + "&returnDate=" + departure.plusDays(5))).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue());
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful /flights response within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.deblock.exercise.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SupplierStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private final ObjectMapper objectMapper = bootBuilder().build();
+
+    private SearchResultCache systemUnderTest;
+
+    private SearchRequest request;
+
+    private List<FlightResponse> flights;
+
+    @BeforeEach
+    void setup() {
+        systemUnderTest = new SearchResultCache(objectMapper, bootBuilder());
+        ReflectionTestUtils.setField(systemUnderTest, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(systemUnderTest, "partialTtl", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(systemUnderTest, "maxEntries", 10);
+        ReflectionTestUtils.setField(systemUnderTest, "precompress", true);
+        ReflectionTestUtils.setField(systemUnderTest, "compressionMinSize", 0);
+
+        request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1, SearchFilters.NONE);
+        flights = List.of(new FlightResponse("Airline1", "CrazyAir", 200.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0)));
+    }
+
+    @Test
+    void shouldLoadOnceAndServeEncodedBytesOnHit() throws IOException {
+        // arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // act
+        CachedSearchResult first = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()));
+        }).join();
+        CachedSearchResult second = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()));
+        }).join();
+
+        // assert
+        EncodedBody json = systemUnderTest.encoded(second, SearchFormat.JSON);
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertArrayEquals(objectMapper.writeValueAsBytes(flights), json.bytes());
+        assertTrue(json.etag().startsWith("\"") && json.etag().endsWith("\""));
+        assertNotEquals(json.etag(), json.etag(ContentCoding.GZIP));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(json.body(ContentCoding.GZIP)))) {
+            assertArrayEquals(json.bytes(), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldShareInFlightLoadBetweenConcurrentMisses() {
+        // arrange
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<FlightSearchResult> load = new CompletableFuture<>();
+
+        // act
+        CompletableFuture<CachedSearchResult> first = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return load;
+        });
+        CompletableFuture<CachedSearchResult> second = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        load.complete(new FlightSearchResult(flights, Map.of()));
+
+        // assert
+        assertEquals(1, loads.get());
+        assertSame(first.join(), second.join());
+    }
+
+    @Test
+    void shouldLoadAgainAfterSharedLoadFails() {
+        // arrange
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<FlightSearchResult> load = new CompletableFuture<>();
+        CompletableFuture<CachedSearchResult> first = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return load;
+        });
+        CompletableFuture<CachedSearchResult> second = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        // act
+        load.completeExceptionally(new IllegalStateException("supplier down"));
+        CachedSearchResult retried = systemUnderTest.getOrLoad(request, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()));
+        }).join();
+
+        // assert
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(2, loads.get());
+        assertNotNull(retried);
+    }
+
+    @Test
+    void shouldExpirePartialResultsAfterPartialTtl() {
+        // arrange
+        ReflectionTestUtils.setField(systemUnderTest, "partialTtl", Duration.ZERO);
+        FlightSearchResult partial = new FlightSearchResult(flights,
+                Map.of("CrazyAir", SupplierStatus.OK, "ToughJet", SupplierStatus.RATE_LIMITED));
+        FlightSearchResult complete = new FlightSearchResult(flights,
+                Map.of("CrazyAir", SupplierStatus.OK, "ToughJet", SupplierStatus.OK));
+        SearchRequest other = new SearchRequest("LHR", "CDG", request.departureDate(), request.returnDate(), 1, SearchFilters.NONE);
+
+        // act
+        systemUnderTest.put(request, partial);
+        systemUnderTest.put(other, complete);
+
+        // assert
+        assertNull(systemUnderTest.get(request));
+        assertNotNull(systemUnderTest.get(other));
+    }
+
+    @Test
+    void shouldNotStoreResultsWhenTtlIsZero() {
+        // arrange
+        ReflectionTestUtils.setField(systemUnderTest, "ttl", Duration.ZERO);
+
+        // act
+        CachedSearchResult result = systemUnderTest.getOrLoad(request, () -> CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()))).join();
+
+        // assert
+        assertNotNull(systemUnderTest.encoded(result, SearchFormat.JSON).bytes());
+        assertNull(systemUnderTest.get(request));
+    }
+
+    @Test
+    void shouldSkipCompressionWhenDisabled() {
+        // arrange
+        ReflectionTestUtils.setField(systemUnderTest, "precompress", false);
+
+        // act
+        CachedSearchResult result = systemUnderTest.getOrLoad(request, () -> CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()))).join();
+
+        // assert
+        assertTrue(systemUnderTest.encoded(result, SearchFormat.JSON).compressed().isEmpty());
+    }
+
+    @Test
+    void shouldSkipCompressionBelowMinimumSize() {
+        // arrange
+        ReflectionTestUtils.setField(systemUnderTest, "compressionMinSize", Integer.MAX_VALUE);
+
+        // act
+        CachedSearchResult result = systemUnderTest.getOrLoad(request, () -> CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()))).join();
+
+        // assert
+        EncodedBody json = systemUnderTest.encoded(result, SearchFormat.JSON);
+        assertTrue(json.compressed().isEmpty());
+        assertSame(json.bytes(), json.body(null));
+    }
+
+    @Test
+    void shouldEncodeBinaryFormatsWithSameFieldsAsJson() throws IOException {
+        // arrange
+        CachedSearchResult result = systemUnderTest.getOrLoad(request, () -> CompletableFuture.completedFuture(new FlightSearchResult(flights, Map.of()))).join();
+
+        // act
+        EncodedBody cbor = systemUnderTest.encoded(result, SearchFormat.CBOR);
+        EncodedBody smile = systemUnderTest.encoded(result, SearchFormat.SMILE);
+
+        // assert
+        assertSame(cbor, systemUnderTest.encoded(result, SearchFormat.CBOR));
+        assertNotEquals(cbor.etag(), systemUnderTest.encoded(result, SearchFormat.JSON).etag());
+        assertEquals(flights, Jackson2ObjectMapperBuilder.cbor().build()
+                .readValue(cbor.bytes(), new TypeReference<List<FlightResponse>>() {}));
+        assertEquals(flights, Jackson2ObjectMapperBuilder.smile().build()
+                .readValue(smile.bytes(), new TypeReference<List<FlightResponse>>() {}));
+        JsonNode cborFlight = Jackson2ObjectMapperBuilder.cbor().build().readTree(cbor.bytes()).get(0);
+        JsonNode smileFlight = Jackson2ObjectMapperBuilder.smile().build().readTree(smile.bytes()).get(0);
+        assertEquals("2025-07-20T10:00:00", cborFlight.get("departureDate").textValue());
+        assertEquals("2025-07-20T12:00:00", smileFlight.get("arrivalDate").textValue());
+    }
+
+    @Test
+    void shouldNegotiateFormatFromAcceptHeader() {
+        assertEquals(SearchFormat.CBOR, SearchFormat.negotiate("application/cbor"));
+        assertEquals(SearchFormat.SMILE, SearchFormat.negotiate("application/json;q=0.5, application/x-jackson-smile"));
+        assertEquals(SearchFormat.JSON, SearchFormat.negotiate("*/*"));
+        assertEquals(SearchFormat.JSON, SearchFormat.negotiate("text/html"));
+        assertEquals(SearchFormat.JSON, SearchFormat.negotiate(null));
+    }
+
+    @Test
+    void shouldNegotiateCodingByQualityValue() {
+        Set<ContentCoding> available = Set.of(ContentCoding.GZIP);
+
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate, gzip;q=0.8", available));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*", available));
+        assertNull(ContentCoding.negotiate("gzip;q=0", available));
+        assertNull(ContentCoding.negotiate("br", available));
+        assertNull(ContentCoding.negotiate(null, available));
+    }
+
+    // Mirrors the spring.jackson defaults Boot applies to its auto-configured builder
+    private static Jackson2ObjectMapperBuilder bootBuilder() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,169 @@
+package org.deblock.exercise.cluster;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.service.SearchPriorityClassifier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterRoutingTest {
+
+    private static final WireMockServer server = new WireMockServer(options().dynamicPort());
+
+    private ClusterRouting systemUnderTest;
+
+    @BeforeAll
+    static void startServer() {
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    void setup() {
+        server.resetAll();
+        systemUnderTest = new ClusterRouting(true, "http://localhost:8080",
+                List.of("http://localhost:8080", server.baseUrl()), 128, Duration.ofSeconds(2),
+                Duration.ofMillis(250), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldKeepForwardedBackgroundSearchInBackgroundLane() {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody("[]")));
+
+        // act
+        ResponseEntity<byte[]> response = systemUnderTest.forward(server.baseUrl(), "/flights?origin=LHR",
+                SearchPriority.BACKGROUND, "application/json", null, null).join();
+
+        // assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(response.getHeaders().getFirst("Server-Timing").startsWith("forward;dur="));
+        server.verify(getRequestedFor(urlPathEqualTo("/flights"))
+                .withHeader(ClusterRouting.FORWARDED_HEADER, equalTo("http://localhost:8080"))
+                .withHeader(SearchPriorityClassifier.PRIORITY_HEADER, equalTo("background")));
+        assertEquals(SearchPriority.BACKGROUND, new SearchPriorityClassifier().classify(
+                server.getAllServeEvents().get(0).getRequest().getHeader(SearchPriorityClassifier.PRIORITY_HEADER), null));
+    }
+
+    @Test
+    void shouldRelayOwnerServerTimingWithForwardHop() {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withHeader("Server-Timing", "cache;dur=0.1;desc=\"hit\", total;dur=0.4")
+                .withBody("[]")));
+
+        // act
+        ResponseEntity<byte[]> response = systemUnderTest.forward(server.baseUrl(), "/flights?origin=LHR",
+                SearchPriority.INTERACTIVE, "application/json", null, null).join();
+
+        // assert
+        assertTrue(response.getHeaders().getFirst("Server-Timing").startsWith("cache;dur=0.1;desc=\"hit\", total;dur=0.4, forward;dur="),
+                response.getHeaders().getFirst("Server-Timing"));
+    }
+
+    @Test
+    void shouldRelayOnlyResponseHeadersThatDescribeTheSearch() {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withStatus(304)
+                .withHeader("ETag", "\"abc-gzip\"")
+                .withHeader("Vary", "Accept", "Accept-Encoding")
+                .withHeader("X-Supplier-Status", "CrazyAir=ok, ToughJet=timeout")
+                .withHeader("Set-Cookie", "session=owner")
+                .withHeader("Cache-Control", "private")));
+
+        // act
+        ResponseEntity<byte[]> response = systemUnderTest.forward(server.baseUrl(), "/flights?origin=LHR",
+                SearchPriority.INTERACTIVE, "application/json", "gzip", "\"abc-gzip\"").join();
+
+        // assert
+        assertEquals(304, response.getStatusCodeValue());
+        assertEquals("\"abc-gzip\"", response.getHeaders().getETag());
+        assertEquals(List.of("Accept", "Accept-Encoding"), response.getHeaders().getVary());
+        assertEquals("CrazyAir=ok, ToughJet=timeout", response.getHeaders().getFirst("X-Supplier-Status"));
+        assertFalse(response.getHeaders().containsKey("Set-Cookie"));
+        assertFalse(response.getHeaders().containsKey("Cache-Control"));
+        server.verify(getRequestedFor(urlPathEqualTo("/flights"))
+                .withHeader("Accept-Encoding", equalTo("gzip"))
+                .withHeader("If-None-Match", equalTo("\"abc-gzip\"")));
+    }
+
+    @Test
+    void shouldServeOwnersRoutesLocallyWhileOwnerIsBackingOff() throws IOException {
+        // arrange
+        String unreachable = "http://localhost:" + freePort();
+        ClusterRouting routing = new ClusterRouting(true, "http://localhost:8080",
+                List.of("http://localhost:8080", unreachable), 128, Duration.ofSeconds(2),
+                Duration.ofMillis(250), Duration.ofMinutes(1));
+        SearchRequest request = requestOwnedBy(routing);
+
+        // act
+        CompletableFuture<ResponseEntity<byte[]>> forwarded = routing.forward(unreachable, "/flights?origin=LHR",
+                SearchPriority.INTERACTIVE, "application/json", null, null);
+
+        // assert
+        assertThrows(CompletionException.class, forwarded::join);
+        assertEquals(Optional.empty(), routing.remoteOwner(request, false));
+    }
+
+    @Test
+    void shouldKeepForwardingToOwnerThatAnswersWithAnError() {
+        // arrange
+        server.stubFor(get(urlPathEqualTo("/flights")).willReturn(aResponse()
+                .withStatus(503)
+                .withHeader("Retry-After", "1")));
+        SearchRequest request = requestOwnedBy(systemUnderTest);
+
+        // act
+        ResponseEntity<byte[]> response = systemUnderTest.forward(server.baseUrl(), "/flights?origin=LHR",
+                SearchPriority.INTERACTIVE, "application/json", null, null).join();
+
+        // assert
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertEquals(Optional.of(server.baseUrl()), systemUnderTest.remoteOwner(request, false));
+    }
+
+    // Some route the ring assigns to the peer that isn't this instance
+    private static SearchRequest requestOwnedBy(ClusterRouting routing) {
+        for (int day = 1; day <= 28; day++) {
+            SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.of(2025, 7, day),
+                    LocalDate.of(2025, 8, day), 1, SearchFilters.NONE);
+            if (routing.remoteOwner(request, false).isPresent()) {
+                return request;
+            }
+        }
+        throw new IllegalStateException("No route hashed to the remote peer");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
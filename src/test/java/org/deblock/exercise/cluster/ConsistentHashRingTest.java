@@ -0,0 +1,49 @@
+package org.deblock.exercise.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = IntStream.range(0, 10_000).mapToObj(i -> "LHR|AMS|route-" + i).toList();
+
+    @Test
+    void shouldSpreadRoutesEvenlyAcrossPeers() {
+        // arrange
+        ConsistentHashRing ring = new ConsistentHashRing(
+                List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082"), 128);
+
+        // act
+        Map<String, Integer> owned = new HashMap<>();
+        KEYS.forEach(key -> owned.merge(ring.nodeFor(key), 1, Integer::sum));
+
+        // assert
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 2_500 && count < 4_200, "unbalanced: " + owned));
+    }
+
+    @Test
+    void shouldOnlyMoveRoutesToAnAddedPeer() {
+        // arrange
+        ConsistentHashRing before = new ConsistentHashRing(List.of("http://localhost:8080", "http://localhost:8081"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(
+                List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082"), 128);
+
+        // act and assert
+        int moved = 0;
+        for (String key : KEYS) {
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertEquals("http://localhost:8082", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > 2_000 && moved < 4_700, "moved " + moved);
+    }
+}
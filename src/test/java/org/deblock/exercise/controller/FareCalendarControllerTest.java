@@ -0,0 +1,84 @@
+package org.deblock.exercise.controller;
+
+import org.deblock.exercise.domain.DailyFare;
+import org.deblock.exercise.service.FareCalendarService;
+import org.deblock.exercise.service.SearchAdmissionControl;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FareCalendarController.class)
+class FareCalendarControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FareCalendarService fareCalendarService;
+
+    @MockBean
+    private SearchAdmissionControl admissionControl;
+
+    @Test
+    void shouldReturnCheapestFarePerDay() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(10);
+        when(fareCalendarService.cheapestPerDay(Mockito.any())).thenReturn(CompletableFuture.completedFuture(List.of(
+                new DailyFare(from, 89.99, "Airline1", "CrazyAir"),
+                DailyFare.none(from.plusDays(1)),
+                DailyFare.failed(from.plusDays(2)))));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights/calendar")
+                        .param("origin", "LHR")
+                        .param("destination", "AMS")
+                        .param("from", from.toString())
+                        .param("to", from.plusDays(2).toString())
+                        .param("tripLength", "3")
+                        .param("numberOfPassengers", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].fare").value(89.99))
+                .andExpect(jsonPath("$[0].failed").doesNotExist())
+                .andExpect(jsonPath("$[1].fare").doesNotExist())
+                .andExpect(jsonPath("$[1].failed").doesNotExist())
+                .andExpect(jsonPath("$[2].failed").value(true));
+        verify(admissionControl).release();
+    }
+
+    @Test
+    void shouldRejectRangeLongerThanLimit() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(10);
+
+        mockMvc.perform(get("/flights/calendar")
+                        .param("origin", "LHR")
+                        .param("destination", "AMS")
+                        .param("from", from.toString())
+                        .param("to", from.plusDays(90).toString())
+                        .param("numberOfPassengers", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(fareCalendarService, never()).cheapestPerDay(Mockito.any());
+    }
+}
@@ -1,28 +1,66 @@
 package org.deblock.exercise.controller;
 
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.cluster.ClusterRouting;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.diagnostics.SlowSearchLog;
 import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.domain.SupplierStatus;
 import org.deblock.exercise.exception.FlightSearchException;
+import org.deblock.exercise.exception.SearchOverloadedException;
+import org.deblock.exercise.service.SearchAdmissionControl;
 import org.deblock.exercise.service.SearchFlightsService;
+import org.deblock.exercise.service.SearchPriorityClassifier;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.net.ConnectException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(FlightController.class)
+@Import({SearchResultCache.class, SearchPriorityClassifier.class, SlowSearchLog.class})
 class FlightControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -30,10 +68,24 @@ class FlightControllerTest {
     @MockBean
     private SearchFlightsService searchFlightsService;
 
+    @MockBean
+    private SearchAdmissionControl admissionControl;
+
+    @MockBean
+    private ClusterRouting clusterRouting;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    void clearCache() {
+        searchResultCache.clear();
+    }
+
 
     @Test
     void shouldReturnFlightResults() throws Exception {
-        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1);
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
 
         List<FlightResponse> mockResults = List.of(
                 new FlightResponse(
@@ -42,27 +94,216 @@ class FlightControllerTest {
                         LocalDateTime.now(), LocalDateTime.now().plusHours(2))
         );
 
-        when(searchFlightsService.search(Mockito.any())).thenReturn(mockResults);
+        when(searchFlightsService.searchAsync(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(
+                new FlightSearchResult(mockResults, new TreeMap<>(Map.of("CrazyAir", SupplierStatus.OK, "ToughJet", SupplierStatus.RATE_LIMITED)))));
 
-        mockMvc.perform(get("/flights")
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
                         .param("origin", request.origin())
                         .param("destination", request.destination())
                         .param("departureDate", request.departureDate().toString())
                         .param("returnDate", request.returnDate().toString())
                         .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].airline").value("CrazyAir"))
-                .andExpect(jsonPath("$[0].fare").value(123.45));
+                .andExpect(jsonPath("$[0].fare").value(123.45))
+                .andExpect(header().string("X-Supplier-Status", "CrazyAir=ok, ToughJet=rate-limited"))
+                .andExpect(header().string("Server-Timing", startsWith("cache;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("desc=\"miss\"")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
     }
 
     @Test
-    void shouldHandleServiceException() throws Exception {
-        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1);
+    void shouldReportOnlyLookupTimeAsCacheOnMiss() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "BCN", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(searchFlightsService.searchAsync(Mockito.eq(request), Mockito.any(), Mockito.any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(() -> new FlightSearchResult(List.of(), Map.of()),
+                        CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS)));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String serverTiming = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("Server-Timing");
+
+        assertTrue(duration(serverTiming, "cache") < 100, serverTiming);
+        assertTrue(duration(serverTiming, "total") >= 300, serverTiming);
+    }
+
+    @Test
+    void shouldServeRepeatedSearchFromCache() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "CDG", LocalDate.now(), LocalDate.now().plusDays(3), 2, SearchFilters.NONE);
+
+        List<FlightResponse> mockResults = List.of(
+                new FlightResponse(
+                        "ToughJet", "ToughJet", 99.0,
+                        "LHR", "CDG",
+                        LocalDateTime.now(), LocalDateTime.now().plusHours(2))
+        );
+
+        when(searchFlightsService.searchAsync(Mockito.eq(request), Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(mockResults, Map.of())));
 
-        when(searchFlightsService.search(Mockito.any()))
-                .thenThrow(new FlightSearchException("Service supplier unavailable"));
+        MvcResult first = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String etag = mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        MvcResult second = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(searchFlightsService, times(1)).searchAsync(Mockito.eq(request), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void shouldRunSearchesMarkedAsBackgroundInTheBackgroundLane() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "MAD", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(searchFlightsService.searchAsync(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(), Map.of())));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .header(SearchPriorityClassifier.PRIORITY_HEADER, "background")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk());
+
+        verify(searchFlightsService).searchAsync(Mockito.eq(request), Mockito.eq(SearchPriority.BACKGROUND), Mockito.any());
+    }
+
+    @Test
+    void shouldReturnCborWhenRequested() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(searchFlightsService.searchAsync(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(
+                new FlightResponse(
+                        "CrazyAir", "CrazyAir", 123.45,
+                        "LHR", "AMS",
+                        LocalDateTime.now(), LocalDateTime.now().plusHours(2))
+        ), Map.of())));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+    }
+
+    @Test
+    void shouldForwardSearchToOwningPeer() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(clusterRouting.remoteOwner(request, false)).thenReturn(Optional.of("http://peer:8081"));
+        when(clusterRouting.forward(eq("http://peer:8081"), Mockito.startsWith("/flights?"), any(), any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("[]".getBytes())));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(searchFlightsService, never()).searchAsync(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void shouldServeSearchLocallyWhenOwningPeerIsUnreachable() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(clusterRouting.remoteOwner(request, false)).thenReturn(Optional.of("http://peer:8081"));
+        when(clusterRouting.forward(eq("http://peer:8081"), Mockito.startsWith("/flights?"), any(), any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+        when(searchFlightsService.searchAsync(Mockito.eq(request), Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(
+                new FlightSearchResult(List.of(), Map.of("CrazyAir", SupplierStatus.OK))));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().string("X-Supplier-Status", "CrazyAir=ok"))
+                .andExpect(header().string("Server-Timing", startsWith("forward;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("desc=\"failed\", cache;dur=")));
+        verify(searchFlightsService, times(1)).searchAsync(Mockito.eq(request), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void shouldShedLoadWithRetryAfterWhenOverloaded() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        doThrow(new SearchOverloadedException("Too many searches in flight", Duration.ofSeconds(2)))
+                .when(admissionControl).acquire();
 
         mockMvc.perform(get("/flights")
                         .param("origin", request.origin())
@@ -71,7 +312,35 @@ class FlightControllerTest {
                         .param("returnDate", request.returnDate().toString())
                         .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
                         .accept(MediaType.APPLICATION_JSON))
-                .andExpect(status().is5xxServerError());
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(header().string("Server-Timing", startsWith("cache;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
+
+        verify(searchFlightsService, never()).searchAsync(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void shouldHandleServiceException() throws Exception {
+        SearchRequest request = new SearchRequest("LHR", "AMS", LocalDate.now(), LocalDate.now().plusDays(3), 1, SearchFilters.NONE);
+
+        when(searchFlightsService.searchAsync(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.failedFuture(new FlightSearchException("Service supplier unavailable")));
+
+        MvcResult mvcResult = mockMvc.perform(get("/flights")
+                        .param("origin", request.origin())
+                        .param("destination", request.destination())
+                        .param("departureDate", request.departureDate().toString())
+                        .param("returnDate", request.returnDate().toString())
+                        .param("numberOfPassengers", String.valueOf(request.numberOfPassengers()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().is5xxServerError())
+                .andExpect(header().string("Server-Timing", containsString("desc=\"miss\"")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
     }
 
     @Test
@@ -125,4 +394,10 @@ class FlightControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    private static double duration(String serverTiming, String metric) {
+        Matcher matcher = Pattern.compile(metric + ";dur=([0-9.]+)").matcher(serverTiming);
+        assertTrue(matcher.find(), serverTiming);
+        return Double.parseDouble(matcher.group(1));
+    }
+}
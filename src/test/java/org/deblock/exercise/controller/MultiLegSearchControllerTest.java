@@ -0,0 +1,170 @@
+package org.deblock.exercise.controller;
+
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.Itinerary;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.deblock.exercise.exception.SearchOverloadedException;
+import org.deblock.exercise.service.MultiLegSearchService;
+import org.deblock.exercise.service.SearchAdmissionControl;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MultiLegSearchController.class)
+class MultiLegSearchControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MultiLegSearchService multiLegSearchService;
+
+    @MockBean
+    private SearchAdmissionControl admissionControl;
+
+    @Test
+    void shouldReturnItinerariesAndReleaseAdmissionSlot() throws Exception {
+        LocalDateTime departure = LocalDateTime.now().plusDays(10).withNano(0);
+        when(multiLegSearchService.search(Mockito.any())).thenReturn(CompletableFuture.completedFuture(List.of(
+                new Itinerary(150.0, List.of(
+                        new FlightResponse("Airline1", "CrazyAir", 100.0, "LHR", "AMS", departure, departure.plusHours(1)),
+                        new FlightResponse("Airline2", "ToughJet", 50.0, "AMS", "CDG", departure.plusDays(2),
+                                departure.plusDays(2).plusHours(1)))))));
+
+        MvcResult mvcResult = mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 5))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].totalFare").value(150.0))
+                .andExpect(jsonPath("$[0].legs", hasSize(2)));
+        verify(admissionControl).acquire();
+        verify(admissionControl).release();
+    }
+
+    @Test
+    void shouldReleaseAdmissionSlotWhenALegSearchFails() throws Exception {
+        when(multiLegSearchService.search(Mockito.any())).thenReturn(CompletableFuture.failedFuture(
+                new FlightSearchException("All suppliers failed for AMS-CDG")));
+
+        MvcResult mvcResult = mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 5))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().is5xxServerError());
+        verify(admissionControl).release();
+    }
+
+    @Test
+    void shouldReleaseAdmissionSlotWhenSearchThrows() throws Exception {
+        when(multiLegSearchService.search(Mockito.any())).thenThrow(new IllegalStateException("No suppliers configured"));
+
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 5))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isInternalServerError());
+        verify(admissionControl, times(1)).release();
+    }
+
+    @Test
+    void shouldShedLoadWithoutSearchingWhenOverloaded() throws Exception {
+        doThrow(new SearchOverloadedException("Too many searches in flight", Duration.ofSeconds(2)))
+                .when(admissionControl).acquire();
+
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 5))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        verify(multiLegSearchService, never()).search(Mockito.any());
+        verify(admissionControl, never()).release();
+    }
+
+    @Test
+    void shouldRejectMoreThanSixLegs() throws Exception {
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(7, 5))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("legs")));
+        verify(admissionControl, never()).acquire();
+        verify(multiLegSearchService, never()).search(Mockito.any());
+    }
+
+    @Test
+    void shouldRejectLimitOutsideRange() throws Exception {
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 51))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("limit")));
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(2, 0))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(admissionControl, never()).acquire();
+    }
+
+    @Test
+    void shouldRejectLegWithInvalidAirportCode() throws Exception {
+        String body = body(2, 5).replaceFirst("\"LHR\"", "\"LHRX\"");
+
+        mockMvc.perform(post("/flights/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(multiLegSearchService, never()).search(Mockito.any());
+    }
+
+    // Legs hop LHR -> AMS -> LHR -> ..., two days apart
+    private static String body(int legs, int limit) {
+        LocalDate first = LocalDate.now().plusDays(10);
+        String legsJson = IntStream.range(0, legs)
+                .mapToObj(i -> "{\"origin\": \"" + (i % 2 == 0 ? "LHR" : "AMS") + "\", \"destination\": \""
+                        + (i % 2 == 0 ? "AMS" : "LHR") + "\", \"departureDate\": \"" + first.plusDays(2L * i) + "\"}")
+                .collect(Collectors.joining(", "));
+        return "{\"legs\": [" + legsJson + "], \"numberOfPassengers\": 1, \"limit\": " + limit + "}";
+    }
+}
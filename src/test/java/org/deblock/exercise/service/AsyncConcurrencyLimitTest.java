@@ -0,0 +1,75 @@
+package org.deblock.exercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConcurrencyLimitTest {
+
+    @Test
+    void shouldStartQueuedTasksAsEarlierOnesComplete() {
+        // arrange
+        AsyncConcurrencyLimit systemUnderTest = new AsyncConcurrencyLimit(2);
+        List<CompletableFuture<Integer>> started = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < 3; i++) {
+            results.add(systemUnderTest.submit(() -> {
+                CompletableFuture<Integer> task = new CompletableFuture<>();
+                started.add(task);
+                return task;
+            }));
+        }
+        int startedBeforeCompletion = started.size();
+        started.get(0).complete(1);
+
+        // assert
+        assertEquals(2, startedBeforeCompletion);
+        assertEquals(3, started.size());
+        assertEquals(1, results.get(0).join());
+        assertEquals(2, systemUnderTest.running());
+    }
+
+    @Test
+    void shouldDrainLongQueueOfSynchronousTasksWithoutDeepRecursion() {
+        // arrange
+        AsyncConcurrencyLimit systemUnderTest = new AsyncConcurrencyLimit(1);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        systemUnderTest.submit(() -> first);
+        AtomicInteger completed = new AtomicInteger();
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            queued.add(systemUnderTest.submit(() -> CompletableFuture.completedFuture(completed.incrementAndGet())));
+        }
+
+        // act
+        first.complete(0);
+
+        // assert
+        assertEquals(100_000, completed.get());
+        assertTrue(queued.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(0, systemUnderTest.running());
+    }
+
+    @Test
+    void shouldReleaseSlotWhenTaskThrowsSynchronously() {
+        // arrange
+        AsyncConcurrencyLimit systemUnderTest = new AsyncConcurrencyLimit(1);
+
+        // act
+        CompletableFuture<Integer> failed = systemUnderTest.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Integer> next = systemUnderTest.submit(() -> CompletableFuture.completedFuture(2));
+
+        // assert
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(2, next.join());
+    }
+}
@@ -0,0 +1,117 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.CalendarRequest;
+import org.deblock.exercise.domain.DailyFare;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FareCalendarServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 7, 1);
+
+    private SearchFlightsService searchFlightsService;
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    void setup() {
+        searchFlightsService = mock(SearchFlightsService.class);
+        searchResultCache = new SearchResultCache(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+        ReflectionTestUtils.setField(searchResultCache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(searchResultCache, "partialTtl", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(searchResultCache, "maxEntries", 100);
+    }
+
+    @Test
+    void shouldReturnCheapestFarePerDayAndReuseCachedDays() {
+        // arrange
+        CalendarRequest request = new CalendarRequest("LHR", "AMS", FROM, FROM.plusDays(2), 3, 1);
+        searchResultCache.put(request.searchFor(FROM), result(80.0, 120.0));
+        when(searchFlightsService.searchAsync(request.searchFor(FROM.plusDays(1))))
+                .thenReturn(CompletableFuture.completedFuture(result(95.0, 140.0)));
+        when(searchFlightsService.searchAsync(request.searchFor(FROM.plusDays(2))))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(), Map.of())));
+        FareCalendarService systemUnderTest = new FareCalendarService(searchFlightsService, searchResultCache, 4);
+
+        // act
+        List<DailyFare> fares = systemUnderTest.cheapestPerDay(request).join();
+
+        // assert
+        assertEquals(List.of(
+                new DailyFare(FROM, 80.0, "Airline1", "CrazyAir"),
+                new DailyFare(FROM.plusDays(1), 95.0, "Airline1", "CrazyAir"),
+                DailyFare.none(FROM.plusDays(2))), fares);
+        verify(searchFlightsService, never()).searchAsync(request.searchFor(FROM));
+        assertNotNull(searchResultCache.get(request.searchFor(FROM.plusDays(1))));
+    }
+
+    @Test
+    void shouldCapConcurrentDaySearches() {
+        // arrange
+        CalendarRequest request = new CalendarRequest("LHR", "AMS", FROM, FROM.plusDays(9), 3, 1);
+        List<CompletableFuture<FlightSearchResult>> outstanding = new ArrayList<>();
+        when(searchFlightsService.searchAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<FlightSearchResult> future = new CompletableFuture<>();
+            outstanding.add(future);
+            return future;
+        });
+        FareCalendarService systemUnderTest = new FareCalendarService(searchFlightsService, searchResultCache, 3);
+
+        // act
+        CompletableFuture<List<DailyFare>> calendar = systemUnderTest.cheapestPerDay(request);
+
+        // assert
+        assertEquals(3, outstanding.size());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(outstanding.size() - i <= 3);
+            outstanding.get(i).complete(result(100.0 + i));
+        }
+        assertEquals(10, calendar.join().size());
+        assertEquals(109.0, calendar.join().get(9).fare());
+    }
+
+    @Test
+    void shouldReportFailedDayWithoutFailingCalendar() {
+        // arrange
+        CalendarRequest request = new CalendarRequest("LHR", "AMS", FROM, FROM.plusDays(1), 3, 1);
+        when(searchFlightsService.searchAsync(request.searchFor(FROM)))
+                .thenReturn(CompletableFuture.failedFuture(new FlightSearchException("all suppliers failed")));
+        when(searchFlightsService.searchAsync(request.searchFor(FROM.plusDays(1))))
+                .thenReturn(CompletableFuture.completedFuture(result(60.0)));
+        FareCalendarService systemUnderTest = new FareCalendarService(searchFlightsService, searchResultCache, 4);
+
+        // act
+        List<DailyFare> fares = systemUnderTest.cheapestPerDay(request).join();
+
+        // assert
+        assertEquals(DailyFare.failed(FROM), fares.get(0));
+        assertNotEquals(DailyFare.none(FROM), fares.get(0));
+        assertEquals(60.0, fares.get(1).fare());
+    }
+
+    private static FlightSearchResult result(double... fares) {
+        List<FlightResponse> flights = new ArrayList<>();
+        for (double fare : fares) {
+            flights.add(new FlightResponse("Airline1", "CrazyAir", fare, "LHR", "AMS",
+                    LocalDateTime.of(2025, 7, 1, 10, 0), LocalDateTime.of(2025, 7, 1, 12, 0)));
+        }
+        return new FlightSearchResult(flights, Map.of());
+    }
+}
@@ -0,0 +1,209 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.SearchFilters;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FareChange;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FareWatchServiceTest {
+
+    private final SearchRequest request = new SearchRequest("LHR", "AMS",
+            LocalDate.of(2025, 7, 20), LocalDate.of(2025, 7, 25), 1, SearchFilters.NONE);
+
+    private SearchFlightsService searchFlightsService;
+    private TaskScheduler scheduler;
+    private ScheduledFuture<?> task;
+    private FareWatchService systemUnderTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        searchFlightsService = mock(SearchFlightsService.class);
+        scheduler = mock(TaskScheduler.class);
+        task = mock(ScheduledFuture.class);
+        doReturn(task).when(scheduler).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+
+        // Sends run inline unless a test needs to hold them back
+        systemUnderTest = service(Runnable::run);
+    }
+
+    @Test
+    void shouldPollEachRouteOnceAndPushOnlyChanges() {
+        // arrange
+        List<List<FareChange>> first = new ArrayList<>();
+        List<List<FareChange>> second = new ArrayList<>();
+        systemUnderTest.subscribe(request, first::add);
+        systemUnderTest.subscribe(request, second::add);
+
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(1)).scheduleAtFixedRate(poll.capture(), eq(Duration.ofSeconds(30)));
+
+        FlightResponse cheap = flight("Airline1", 80.0, 8);
+        FlightResponse dear = flight("Airline2", 150.0, 9);
+        when(searchFlightsService.searchAsync(request, SearchPriority.BACKGROUND))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(cheap, dear), Map.of())))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(cheap, dear), Map.of())))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(
+                        List.of(flight("Airline1", 70.0, 8)), Map.of())));
+
+        // act
+        poll.getValue().run();
+        poll.getValue().run();
+        poll.getValue().run();
+
+        // assert
+        verify(searchFlightsService, times(3)).searchAsync(request, SearchPriority.BACKGROUND);
+        assertEquals(first, second);
+        assertEquals(2, first.size());
+        assertEquals(List.of(FareChange.added(cheap), FareChange.added(dear)), first.get(0));
+        assertEquals(List.of(FareChange.changed(flight("Airline1", 70.0, 8), 80.0), FareChange.removed(dear)), first.get(1));
+    }
+
+    @Test
+    void shouldSendCurrentFlightsToLateSubscriber() {
+        // arrange
+        systemUnderTest.subscribe(request, changes -> { });
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), any(Duration.class));
+        FlightResponse cheap = flight("Airline1", 80.0, 8);
+        when(searchFlightsService.searchAsync(request, SearchPriority.BACKGROUND))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(cheap), Map.of())));
+        poll.getValue().run();
+
+        // act
+        List<List<FareChange>> late = new ArrayList<>();
+        systemUnderTest.subscribe(request, late::add);
+
+        // assert
+        assertEquals(List.of(List.of(FareChange.added(cheap))), late);
+    }
+
+    @Test
+    void shouldStopPollingWhenLastSubscriberLeaves() {
+        // arrange
+        Runnable first = systemUnderTest.subscribe(request, changes -> { });
+        Runnable second = systemUnderTest.subscribe(request, changes -> { });
+
+        // act
+        first.run();
+        verify(task, never()).cancel(anyBoolean());
+        second.run();
+
+        // assert
+        verify(task).cancel(false);
+        assertEquals(0, systemUnderTest.routeCount());
+    }
+
+    @Test
+    void shouldDropSubscriberWhoseListenerFails() {
+        // arrange
+        systemUnderTest.subscribe(request, changes -> {
+            throw new IllegalStateException("client went away");
+        });
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), any(Duration.class));
+        when(searchFlightsService.searchAsync(request, SearchPriority.BACKGROUND)).thenReturn(CompletableFuture.completedFuture(
+                new FlightSearchResult(List.of(flight("Airline1", 80.0, 8)), Map.of())));
+
+        // act
+        poll.getValue().run();
+
+        // assert
+        verify(task).cancel(false);
+        assertEquals(0, systemUnderTest.routeCount());
+    }
+
+    @Test
+    void shouldSendFromDeliveryExecutorAndAllowNextPollOncePublished() {
+        // arrange
+        Queue<Runnable> sends = new ArrayDeque<>();
+        systemUnderTest = service(sends::add);
+        List<List<FareChange>> received = new ArrayList<>();
+        systemUnderTest.subscribe(request, received::add);
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), any(Duration.class));
+        CompletableFuture<FlightSearchResult> search = new CompletableFuture<>();
+        when(searchFlightsService.searchAsync(request, SearchPriority.BACKGROUND)).thenReturn(search);
+        poll.getValue().run();
+
+        // act
+        search.complete(new FlightSearchResult(List.of(flight("Airline1", 80.0, 8)), Map.of()));
+        poll.getValue().run();
+
+        // assert: completing the search only queues the send, and the next poll may start
+        assertTrue(received.isEmpty());
+        assertEquals(1, sends.size());
+        sends.poll().run();
+        assertEquals(List.of(List.of(FareChange.added(flight("Airline1", 80.0, 8)))), received);
+        verify(searchFlightsService, times(2)).searchAsync(request, SearchPriority.BACKGROUND);
+    }
+
+    @Test
+    void shouldSendSnapshotBeforeLaterChangesToNewSubscriber() {
+        // arrange
+        Queue<Runnable> sends = new ArrayDeque<>();
+        systemUnderTest = service(sends::add);
+        systemUnderTest.subscribe(request, changes -> { });
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), any(Duration.class));
+        FlightResponse cheap = flight("Airline1", 80.0, 8);
+        FlightResponse cheaper = flight("Airline1", 70.0, 8);
+        when(searchFlightsService.searchAsync(request, SearchPriority.BACKGROUND))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(cheap), Map.of())))
+                .thenReturn(CompletableFuture.completedFuture(new FlightSearchResult(List.of(cheaper), Map.of())));
+        poll.getValue().run();
+
+        // act: the late subscriber joins while the first diff is still queued, then the fare changes
+        List<List<FareChange>> late = new ArrayList<>();
+        systemUnderTest.subscribe(request, late::add);
+        poll.getValue().run();
+        while (!sends.isEmpty()) {
+            sends.poll().run();
+        }
+
+        // assert
+        assertEquals(List.of(List.of(FareChange.added(cheap)), List.of(FareChange.changed(cheaper, 80.0))), late);
+    }
+
+    private FareWatchService service(Executor deliveryExecutor) {
+        // Cache disabled so every poll reaches the service
+        SearchResultCache searchResultCache = new SearchResultCache(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+        ReflectionTestUtils.setField(searchResultCache, "ttl", Duration.ZERO);
+        ReflectionTestUtils.setField(searchResultCache, "partialTtl", Duration.ofSeconds(2));
+
+        FareWatchService service = new FareWatchService(searchFlightsService, searchResultCache, scheduler, deliveryExecutor);
+        ReflectionTestUtils.setField(service, "interval", Duration.ofSeconds(30));
+        return service;
+    }
+
+    private static FlightResponse flight(String airline, double fare, int hour) {
+        return new FlightResponse(airline, "CrazyAir", fare, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, hour, 0), LocalDateTime.of(2025, 7, 20, hour + 2, 0));
+    }
+}
@@ -0,0 +1,103 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.SupplierStatus;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.deblock.exercise.exception.FlightSupplierException;
+import org.deblock.exercise.exception.SupplierRateLimitedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalFlightMergerTest {
+
+    private static FlightResponse flight(String airline, double fare) {
+        return new FlightResponse(airline, "CrazyAir", fare, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0));
+    }
+
+    @Test
+    void shouldKeepResultsSortedAsBatchesArrive() {
+        // arrange
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(3);
+
+        // act
+        merger.add("CrazyAir", List.of(flight("A", 300.0), flight("B", 100.0)));
+        merger.add("ToughJet", List.of(flight("C", 200.0)));
+        merger.add("SkyHop", List.of(flight("D", 50.0), flight("E", 400.0)));
+
+        // assert
+        assertEquals(List.of(50.0, 100.0, 200.0, 300.0, 400.0),
+                merger.result().flights().stream().map(FlightResponse::fare).toList());
+    }
+
+    @Test
+    void shouldReturnPartialResultsWhenSomeBatchesFail() {
+        // arrange
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(2);
+
+        // act
+        merger.fail("ToughJet", new SupplierRateLimitedException("Rate limit reached"));
+        merger.add("CrazyAir", List.of(flight("A", 120.0)));
+
+        // assert
+        FlightSearchResult result = merger.result();
+        assertEquals(List.of(flight("A", 120.0)), result.flights());
+        assertEquals(Map.of("CrazyAir", SupplierStatus.OK, "ToughJet", SupplierStatus.RATE_LIMITED), result.supplierStatuses());
+    }
+
+    @Test
+    void shouldThrowWhenEveryBatchFails() {
+        // arrange
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(2);
+
+        // act
+        merger.fail("CrazyAir", new FlightSupplierException("Supplier failed"));
+        merger.fail("ToughJet", new FlightSupplierException("Supplier failed"));
+
+        // assert
+        assertThrows(FlightSearchException.class, merger::result);
+    }
+
+    @Test
+    void shouldCollapseSameItineraryAcrossSuppliersKeepingCheapest() {
+        // arrange
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(2);
+        FlightResponse crazyAir = flight("A", 150.0);
+        FlightResponse toughJet = new FlightResponse("A", "ToughJet", 120.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0));
+
+        // act
+        merger.add("CrazyAir", List.of(crazyAir, flight("B", 130.0)));
+        merger.add("ToughJet", List.of(toughJet));
+
+        // assert
+        List<FlightResponse> flights = merger.result().flights();
+        assertEquals(2, flights.size());
+        assertEquals("ToughJet", flights.get(0).supplier());
+        assertEquals(120.0, flights.get(0).fare());
+        assertEquals(List.of("CrazyAir"), flights.get(0).alternateSuppliers());
+        assertEquals("B", flights.get(1).airline());
+    }
+
+    @Test
+    void shouldCollapseDuplicatesWithinOneBatch() {
+        // arrange
+        IncrementalFlightMerger merger = new IncrementalFlightMerger(1);
+
+        // act
+        merger.add("CrazyAir", List.of(flight("A", 150.0), flight("A", 140.0), flight("B", 145.0), flight("A", 140.0)));
+
+        // assert
+        List<FlightResponse> flights = merger.result().flights();
+        assertEquals(List.of("A", "B"), flights.stream().map(FlightResponse::airline).toList());
+        assertEquals(List.of(140.0, 145.0), flights.stream().map(FlightResponse::fare).toList());
+    }
+}
@@ -0,0 +1,129 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.controller.dto.MultiLegSearchRequest;
+import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
+import org.deblock.exercise.domain.Itinerary;
+import org.deblock.exercise.domain.SupplierStatus;
+import org.deblock.exercise.exception.FlightSearchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MultiLegSearchServiceTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2025, 7, 1);
+
+    private SearchFlightsService searchFlightsService;
+    private SearchResultCache searchResultCache;
+    private MultiLegSearchService systemUnderTest;
+
+    private final MultiLegSearchRequest.Leg outbound = new MultiLegSearchRequest.Leg("LHR", "AMS", FIRST);
+    private final MultiLegSearchRequest.Leg onward = new MultiLegSearchRequest.Leg("AMS", "CDG", FIRST.plusDays(2));
+
+    @BeforeEach
+    void setup() {
+        searchFlightsService = mock(SearchFlightsService.class);
+        searchResultCache = new SearchResultCache(Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+        ReflectionTestUtils.setField(searchResultCache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(searchResultCache, "partialTtl", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(searchResultCache, "maxEntries", 100);
+        systemUnderTest = new MultiLegSearchService(searchFlightsService, searchResultCache);
+        ReflectionTestUtils.setField(systemUnderTest, "minConnection", Duration.ofHours(1));
+        ReflectionTestUtils.setField(systemUnderTest, "maxExpansions", 1000);
+    }
+
+    @Test
+    void shouldJoinLegsIntoCheapestItinerariesUpToLimit() {
+        // arrange
+        MultiLegSearchRequest request = new MultiLegSearchRequest(List.of(outbound, onward), 1, 3);
+        when(searchFlightsService.searchAsync(outbound.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(outbound, 100.0, 150.0)));
+        when(searchFlightsService.searchAsync(onward.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(onward, 50.0, 80.0)));
+
+        // act
+        List<Itinerary> itineraries = systemUnderTest.search(request).join();
+
+        // assert
+        assertEquals(List.of(150.0, 180.0, 200.0), itineraries.stream().map(Itinerary::totalFare).toList());
+        assertEquals(List.of("AMS", "CDG"), itineraries.get(0).legs().stream().map(FlightResponse::destinationAirportCode).toList());
+    }
+
+    @Test
+    void shouldServeCachedLegsWithoutSearchingThem() {
+        // arrange
+        MultiLegSearchRequest request = new MultiLegSearchRequest(List.of(outbound, onward), 1, null);
+        searchResultCache.put(outbound.toSearchRequest(1), result(outbound, 100.0));
+        when(searchFlightsService.searchAsync(onward.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(onward, 50.0)));
+
+        // act
+        List<Itinerary> itineraries = systemUnderTest.search(request).join();
+
+        // assert
+        assertEquals(1, itineraries.size());
+        verify(searchFlightsService, never()).searchAsync(outbound.toSearchRequest(1));
+        verify(searchFlightsService, times(1)).searchAsync(onward.toSearchRequest(1));
+    }
+
+    @Test
+    void shouldFailWhenOneLegFailsButKeepOtherLegsCached() {
+        // arrange
+        MultiLegSearchRequest request = new MultiLegSearchRequest(List.of(outbound, onward), 1, null);
+        when(searchFlightsService.searchAsync(outbound.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(outbound, 100.0)));
+        when(searchFlightsService.searchAsync(onward.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.failedFuture(new FlightSearchException("All suppliers failed")));
+
+        // act
+        CompletionException ex = assertThrows(CompletionException.class, () -> systemUnderTest.search(request).join());
+
+        // assert
+        assertInstanceOf(FlightSearchException.class, ex.getCause());
+        assertNotNull(searchResultCache.get(outbound.toSearchRequest(1)));
+        assertNull(searchResultCache.get(onward.toSearchRequest(1)));
+    }
+
+    @Test
+    void shouldReturnNoItinerariesWhenALegHasNoFlights() {
+        // arrange
+        MultiLegSearchRequest request = new MultiLegSearchRequest(List.of(outbound, onward), 1, null);
+        when(searchFlightsService.searchAsync(outbound.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(outbound, 100.0)));
+        when(searchFlightsService.searchAsync(onward.toSearchRequest(1)))
+                .thenReturn(CompletableFuture.completedFuture(result(onward)));
+
+        // act
+        List<Itinerary> itineraries = systemUnderTest.search(request).join();
+
+        // assert
+        assertTrue(itineraries.isEmpty());
+    }
+
+    // Flights depart at 10:00 on the leg's date and take two hours, so consecutive legs always connect
+    private static FlightSearchResult result(MultiLegSearchRequest.Leg leg, double... fares) {
+        SearchRequest search = leg.toSearchRequest(1);
+        LocalDateTime departure = search.departureDate().atTime(10, 0);
+        List<FlightResponse> flights = Arrays.stream(fares)
+                .mapToObj(fare -> new FlightResponse("Airline1", "CrazyAir", fare, search.origin(), search.destination(),
+                        departure, departure.plusHours(2)))
+                .toList();
+        return new FlightSearchResult(flights, Map.of("CrazyAir", SupplierStatus.OK));
+    }
+}
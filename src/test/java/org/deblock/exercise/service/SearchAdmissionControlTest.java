@@ -0,0 +1,53 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.exception.SearchOverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchAdmissionControlTest {
+
+    private SearchAdmissionControl systemUnderTest;
+
+    @BeforeEach
+    void setup() {
+        systemUnderTest = new SearchAdmissionControl();
+        ReflectionTestUtils.setField(systemUnderTest, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(systemUnderTest, "maxQueueWait", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(systemUnderTest, "retryAfter", Duration.ofSeconds(3));
+    }
+
+    @Test
+    void shouldRejectOnceConcurrencyLimitIsReached() {
+        // arrange
+        systemUnderTest.acquire();
+        systemUnderTest.acquire();
+
+        // act and assert
+        SearchOverloadedException ex = assertThrows(SearchOverloadedException.class, systemUnderTest::acquire);
+        assertEquals(Duration.ofSeconds(3), ex.getRetryAfter());
+        assertEquals(2, systemUnderTest.inFlight());
+
+        systemUnderTest.release();
+        assertDoesNotThrow(systemUnderTest::acquire);
+    }
+
+    @Test
+    void shouldRejectWhileQueueWaitIsHighAndRecoverWhenIdle() {
+        // arrange
+        for (int i = 0; i < 20; i++) {
+            systemUnderTest.recordQueueWait(Duration.ofSeconds(1).toNanos());
+        }
+        systemUnderTest.acquire();
+
+        // act and assert
+        assertThrows(SearchOverloadedException.class, systemUnderTest::acquire);
+
+        systemUnderTest.release();
+        assertDoesNotThrow(systemUnderTest::acquire);
+    }
+}
@@ -1,20 +1,40 @@
 package org.deblock.exercise.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.deblock.exercise.controller.dto.SearchFilters;
 import org.deblock.exercise.controller.dto.SearchRequest;
+import org.deblock.exercise.diagnostics.SearchTimings;
+import org.deblock.exercise.diagnostics.SupplierCallEvent;
 import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSearchResult;
 import org.deblock.exercise.domain.FlightSupplierClient;
+import org.deblock.exercise.domain.SearchPriority;
+import org.deblock.exercise.domain.SupplierStatus;
 import org.deblock.exercise.exception.FlightSearchException;
 import org.deblock.exercise.exception.FlightSupplierException;
+import org.deblock.exercise.exception.SupplierClientErrorException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class SearchFlightsServiceTest {
@@ -25,17 +45,30 @@ class SearchFlightsServiceTest {
 
     private SearchRequest request;
 
+    private MockEnvironment environment;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setup() {
         supplier1 = mock(FlightSupplierClient.class);
         supplier2 = mock(FlightSupplierClient.class);
-        systemUnderTest = new SearchFlightsService(List.of(supplier1, supplier2));
+        when(supplier1.name()).thenReturn("CrazyAir");
+        when(supplier2.name()).thenReturn("ToughJet");
+        environment = new MockEnvironment();
+        meterRegistry = new SimpleMeterRegistry();
+        SupplierNegativeCache negativeCache = new SupplierNegativeCache(meterRegistry);
+        ReflectionTestUtils.setField(negativeCache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(negativeCache, "maxEntries", 100);
+        systemUnderTest = new SearchFlightsService(List.of(supplier1, supplier2),
+                new SupplierLaneScheduler(Runnable::run, 4, 1, 4, 1, nanos -> {}),
+                new SupplierRateLimiters(environment), negativeCache);
 
         request = new SearchRequest(
                 "LHR", "AMS",
                 LocalDate.of(2025, 7, 20),
                 LocalDate.of(2025, 7, 25),
-                1
+                1, SearchFilters.NONE
         );
     }
 
@@ -85,6 +118,26 @@ class SearchFlightsServiceTest {
         assertEquals(response1, results.get(0));
     }
 
+    @Test
+    void shouldRecordPhaseAndSupplierTimings() {
+        // arrange
+        FlightResponse response1 = new FlightResponse("Airline1", "CrazyAir", 200.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0));
+        when(supplier1.search(request)).thenReturn(CompletableFuture.completedFuture(List.of(response1)));
+        when(supplier2.search(request)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        SearchTimings timings = new SearchTimings();
+
+        // act
+        systemUnderTest.searchAsync(request, SearchPriority.INTERACTIVE, timings).join();
+
+        // assert
+        String header = timings.header();
+        for (String metric : List.of("queue", "supplier-crazyair", "supplier-toughjet", "merge", "fan-out", "wait")) {
+            assertTrue(timings.has(metric), () -> metric + " missing from " + header);
+        }
+    }
+
     @Test
     void shouldReturnEmptyListIfAllSuppliersFail() {
         // arrange
@@ -94,4 +147,94 @@ class SearchFlightsServiceTest {
         // act and assert
         assertThrows(FlightSearchException.class, () -> systemUnderTest.search(request));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSkipSupplierThatIsOutOfTokens() {
+        // arrange
+        environment.setProperty("toughjet.rate-limit.permits-per-second", "0.001");
+        environment.setProperty("toughjet.rate-limit.burst", "1");
+
+        FlightResponse response1 = new FlightResponse("Airline1", "CrazyAir", 200.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0));
+
+        FlightResponse response2 = new FlightResponse("Airline2", "ToughJet", 250.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 20, 10, 0),
+                LocalDateTime.of(2025, 7, 20, 12, 0));
+
+        when(supplier1.search(request)).thenReturn(CompletableFuture.completedFuture(List.of(response1)));
+        when(supplier2.search(request)).thenReturn(CompletableFuture.completedFuture(List.of(response2)));
+
+        // act
+        FlightSearchResult first = systemUnderTest.searchAsync(request).join();
+        FlightSearchResult second = systemUnderTest.searchAsync(request).join();
+
+        // assert
+        assertEquals(SupplierStatus.OK, first.supplierStatuses().get("ToughJet"));
+        assertEquals(SupplierStatus.RATE_LIMITED, second.supplierStatuses().get("ToughJet"));
+        assertEquals(List.of(response1), second.flights());
+        verify(supplier2, times(1)).search(request);
+    }
+
+    @Test
+    void shouldNegativeCacheEmptyResultsAndClientErrors() {
+        // arrange
+        when(supplier1.search(request)).thenReturn(CompletableFuture.failedFuture(
+                new SupplierClientErrorException("Supplier rejected the request", 400, null)));
+        when(supplier2.search(request)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // act
+        systemUnderTest.searchAsync(request).join();
+        FlightSearchResult second = systemUnderTest.searchAsync(request).join();
+
+        // assert
+        assertEquals(SupplierStatus.FAILED, second.supplierStatuses().get("CrazyAir"));
+        assertEquals(SupplierStatus.OK, second.supplierStatuses().get("ToughJet"));
+        verify(supplier1, times(1)).search(request);
+        verify(supplier2, times(1)).search(request);
+        assertEquals(1.0, meterRegistry.get("flights.supplier.negative.cache")
+                .tags("supplier", "ToughJet", "outcome", "hit").counter().count());
+    }
+
+    @Test
+    void shouldRecordSupplierCallEventsForCallsAnsweredWithoutTheSupplier() throws Exception {
+        // arrange
+        environment.setProperty("toughjet.rate-limit.permits-per-second", "0.001");
+        environment.setProperty("toughjet.rate-limit.burst", "1");
+        when(supplier1.search(request)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(supplier2.search(request)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        systemUnderTest.searchAsync(request).join();
+        Path file = Files.createTempFile("supplier-call", ".jfr");
+
+        // act
+        try (Recording recording = new Recording()) {
+            recording.enable(SupplierCallEvent.class);
+            recording.start();
+            systemUnderTest.searchAsync(request).join();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // assert
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        Map<String, String> outcomes = events.stream()
+                .collect(Collectors.toMap(event -> event.getString("supplier"), event -> event.getString("outcome")));
+        assertEquals(Map.of("CrazyAir", "negative-cached", "ToughJet", "rate-limited"), outcomes);
+        assertTrue(events.stream().allMatch(event -> event.getInt("status") == 0));
+    }
+
+    @Test
+    void shouldNotNegativeCacheServerErrors() {
+        // arrange
+        when(supplier1.search(request)).thenReturn(CompletableFuture.failedFuture(new FlightSupplierException("Supplier fetch failed")));
+        when(supplier2.search(request)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // act
+        systemUnderTest.searchAsync(request).join();
+        systemUnderTest.searchAsync(request).join();
+
+        // assert
+        verify(supplier1, times(2)).search(request);
+    }
+}
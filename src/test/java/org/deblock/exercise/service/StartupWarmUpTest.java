@@ -0,0 +1,46 @@
+package org.deblock.exercise.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.deblock.exercise.cache.SearchResultCache;
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.FlightSupplierClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class StartupWarmUpTest {
+
+    @Test
+    void shouldPreconnectSuppliersAndRunSyntheticSearches() throws Exception {
+        // arrange
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        SearchResultCache searchResultCache = spy(new SearchResultCache(objectMapper, Jackson2ObjectMapperBuilder.json()));
+        FlightSupplierClient supplier1 = mock(FlightSupplierClient.class);
+        FlightSupplierClient supplier2 = mock(FlightSupplierClient.class);
+        when(supplier1.name()).thenReturn("CrazyAir");
+        when(supplier2.name()).thenReturn("ToughJet");
+        when(supplier1.readSample(10)).thenReturn(List.of(new FlightResponse("CrazyAir1", "CrazyAir", 120.0, "LHR", "AMS",
+                LocalDateTime.of(2025, 7, 1, 10, 0), LocalDateTime.of(2025, 7, 1, 12, 0))));
+        when(supplier2.readSample(10)).thenReturn(List.of());
+
+        StartupWarmUp systemUnderTest = new StartupWarmUp(List.of(supplier1, supplier2), searchResultCache);
+        ReflectionTestUtils.setField(systemUnderTest, "iterations", 3);
+        ReflectionTestUtils.setField(systemUnderTest, "flightsPerSupplier", 10);
+
+        // act
+        systemUnderTest.run(null);
+
+        // assert
+        verify(supplier1).warmUp();
+        verify(supplier2).warmUp();
+        verify(supplier1, times(3)).readSample(10);
+        verify(supplier2, times(3)).readSample(10);
+        verify(searchResultCache, times(9)).encoded(any(), any());
+        verify(searchResultCache, never()).put(any(), any());
+    }
+}
@@ -0,0 +1,76 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.SearchPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupplierLaneSchedulerTest {
+
+    // Holds tasks until the test runs them, standing in for busy pool threads
+    private final Queue<Runnable> pool = new ArrayDeque<>();
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    void shouldKeepReservedCapacityForInteractiveSearches() {
+        // arrange
+        SupplierLaneScheduler scheduler = new SupplierLaneScheduler(pool::add, 4, 2, 4, 1, nanos -> {});
+
+        // act
+        for (int i = 0; i < 5; i++) {
+            submit(scheduler, SearchPriority.BACKGROUND, "b" + i);
+        }
+        submit(scheduler, SearchPriority.INTERACTIVE, "i0");
+        submit(scheduler, SearchPriority.INTERACTIVE, "i1");
+
+        // assert
+        assertEquals(4, pool.size());
+        assertEquals(3, scheduler.queued(SearchPriority.BACKGROUND));
+        assertEquals(0, scheduler.queued(SearchPriority.INTERACTIVE));
+    }
+
+    @Test
+    void shouldShareFreedSlotsByWeight() {
+        // arrange
+        SupplierLaneScheduler scheduler = new SupplierLaneScheduler(pool::add, 1, 0, 4, 1, nanos -> {});
+        submit(scheduler, SearchPriority.INTERACTIVE, "blocker");
+        for (int i = 0; i < 10; i++) {
+            submit(scheduler, SearchPriority.BACKGROUND, "b" + i);
+            submit(scheduler, SearchPriority.INTERACTIVE, "i" + i);
+        }
+
+        // act
+        for (int i = 0; i < 11; i++) {
+            pool.poll().run();
+        }
+
+        // assert
+        List<String> served = started.subList(1, started.size());
+        assertEquals(8, served.stream().filter(name -> name.startsWith("i")).count());
+        assertEquals(2, served.stream().filter(name -> name.startsWith("b")).count());
+    }
+
+    @Test
+    void shouldRecordQueueWaitForInteractiveSearchesOnly() {
+        // arrange
+        List<Long> waits = new ArrayList<>();
+        SupplierLaneScheduler scheduler = new SupplierLaneScheduler(Runnable::run, 2, 1, 4, 1, waits::add);
+
+        // act
+        submit(scheduler, SearchPriority.BACKGROUND, "b0");
+        submit(scheduler, SearchPriority.INTERACTIVE, "i0");
+
+        // assert
+        assertEquals(List.of("b0", "i0"), started);
+        assertEquals(1, waits.size());
+    }
+
+    private void submit(SupplierLaneScheduler scheduler, SearchPriority priority, String name) {
+        scheduler.lane(priority).execute(() -> started.add(name));
+    }
+}
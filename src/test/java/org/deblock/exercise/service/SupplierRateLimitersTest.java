@@ -0,0 +1,72 @@
+package org.deblock.exercise.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupplierRateLimitersTest {
+
+    private SupplierRateLimiters systemUnderTest;
+
+    @BeforeEach
+    void setup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("crazyair.rate-limit.permits-per-second", "5")
+                .withProperty("crazyair.rate-limit.burst", "1")
+                .withProperty("crazyair.rate-limit.max-wait", "1s");
+        systemUnderTest = new SupplierRateLimiters(environment);
+    }
+
+    @Test
+    void shouldWaitForReservedPermitEvenWhenUnparkedEarly() throws InterruptedException {
+        // arrange
+        assertTrue(systemUnderTest.acquire("CrazyAir"));
+        Thread caller = Thread.currentThread();
+        Thread waker = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                LockSupport.unpark(caller);
+                LockSupport.parkNanos(Duration.ofMillis(5).toNanos());
+            }
+        });
+
+        // act
+        long started = System.nanoTime();
+        waker.start();
+        boolean acquired = systemUnderTest.acquire("CrazyAir");
+        long waited = System.nanoTime() - started;
+        waker.join();
+
+        // assert
+        assertTrue(acquired);
+        assertTrue(waited >= Duration.ofMillis(180).toNanos(), () -> "waited " + waited / 1_000_000 + "ms");
+    }
+
+    @Test
+    void shouldGiveUpWaitingWhenInterrupted() {
+        // arrange
+        assertTrue(systemUnderTest.acquire("CrazyAir"));
+        Thread.currentThread().interrupt();
+
+        // act
+        long started = System.nanoTime();
+        boolean acquired = systemUnderTest.acquire("CrazyAir");
+        long waited = System.nanoTime() - started;
+
+        // assert
+        assertTrue(Thread.interrupted());
+        assertFalse(acquired);
+        assertTrue(waited < Duration.ofMillis(100).toNanos(), () -> "waited " + waited / 1_000_000 + "ms");
+    }
+
+    @Test
+    void shouldNotLimitSupplierWithoutConfiguredRate() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(systemUnderTest.acquire("ToughJet"));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.deblock.exercise.service;
+
+import org.deblock.exercise.domain.FlightResponse;
+import org.deblock.exercise.domain.Itinerary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKItineraryJoinTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 7, 20, 0, 0);
+
+    @Test
+    void shouldMatchBruteForceCheapestCombinations() {
+        // arrange
+        Random random = new Random(42);
+        List<List<FlightResponse>> legs = new ArrayList<>();
+        for (int leg = 0; leg < 3; leg++) {
+            List<FlightResponse> flights = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                LocalDateTime departure = DAY.plusDays(leg * 2L).plusHours(random.nextInt(20));
+                flights.add(flight(30 + random.nextInt(300), departure, departure.plusHours(2)));
+            }
+            flights.sort(Comparator.comparingDouble(FlightResponse::fare));
+            legs.add(flights);
+        }
+
+        // act
+        List<Itinerary> cheapest = TopKItineraryJoin.cheapest(legs, 15, Duration.ZERO, Integer.MAX_VALUE);
+
+        // assert
+        List<Double> expected = new ArrayList<>();
+        for (FlightResponse a : legs.get(0)) {
+            for (FlightResponse b : legs.get(1)) {
+                for (FlightResponse c : legs.get(2)) {
+                    expected.add(a.fare() + b.fare() + c.fare());
+                }
+            }
+        }
+        expected.sort(null);
+        assertEquals(expected.subList(0, 15), cheapest.stream().map(Itinerary::totalFare).toList());
+    }
+
+    @Test
+    void shouldSkipCombinationsThatDoNotConnect() {
+        // arrange
+        FlightResponse outbound = flight(100, DAY.plusHours(8), DAY.plusHours(10));
+        FlightResponse tooEarly = flight(20, DAY.plusHours(10).plusMinutes(30), DAY.plusHours(12));
+        FlightResponse later = flight(60, DAY.plusHours(13), DAY.plusHours(15));
+
+        // act
+        List<Itinerary> cheapest = TopKItineraryJoin.cheapest(List.of(List.of(outbound), List.of(tooEarly, later)),
+                5, Duration.ofHours(1), Integer.MAX_VALUE);
+
+        // assert
+        assertEquals(1, cheapest.size());
+        assertEquals(160.0, cheapest.get(0).totalFare());
+        assertEquals(List.of(outbound, later), cheapest.get(0).legs());
+    }
+
+    @Test
+    void shouldReturnNothingWhenALegHasNoFlights() {
+        assertTrue(TopKItineraryJoin.cheapest(List.of(List.of(flight(50, DAY, DAY.plusHours(1))), List.of()),
+                5, Duration.ZERO, Integer.MAX_VALUE).isEmpty());
+    }
+
+    private static FlightResponse flight(double fare, LocalDateTime departure, LocalDateTime arrival) {
+        return new FlightResponse("Airline1", "CrazyAir", fare, "LHR", "AMS", departure, arrival);
+    }
+}